@@ -0,0 +1,118 @@
+package de.vladistic.sokoban.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file written with {@code -rf csv} against a baseline in
+ * the same format and flags every benchmark that got slower than the tolerance.
+ * The baseline is committed as {@code benchmarks/baseline.csv}; with {@code -record}
+ * the results replace it instead, e.g. after an intended change in performance.
+ * <pre>
+ * BaselineCompare [-record] &lt;results.csv&gt; &lt;baseline.csv&gt; [tolerance percent, default 10]
+ * </pre>
+ * Exits with status 1 if a benchmark regressed and 2 if the baseline is missing.
+ */
+public class BaselineCompare {
+
+    public static void main(String[] args) throws IOException {
+        boolean record = args.length > 0 && args[0].equals("-record");
+        int first = record ? 1 : 0;
+        if (args.length - first < 2) {
+            System.err.println("Usage: BaselineCompare [-record] <results.csv> <baseline.csv> [tolerance%]");
+            System.exit(2);
+        }
+        Path results = Path.of(args[first]);
+        Path baseline = Path.of(args[first + 1]);
+        double tolerance = args.length > first + 2 ? Double.parseDouble(args[first + 2]) / 100 : 0.10;
+        if (record) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Recorded " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.err.println("No baseline " + baseline + ", record one with -record");
+            System.exit(2);
+        }
+
+        Map<String, Row> current = read(results);
+        Map<String, Row> reference = read(baseline);
+        int regressions = 0;
+        for (Map.Entry<String, Row> entry : current.entrySet()) {
+            Row now = entry.getValue();
+            Row before = reference.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %-60s %12.3f %s%n", entry.getKey(), now.score, now.unit);
+                continue;
+            }
+            // Positive change means slower: throughput is better when higher, times when lower
+            double change = now.higherIsBetter() ? before.score / now.score - 1 : now.score / before.score - 1;
+            String verdict = change > tolerance ? "REGRESSED" : change < -tolerance ? "IMPROVED" : "OK";
+            if (change > tolerance) {
+                regressions++;
+            }
+            System.out.printf("%-10s %-60s %12.3f -> %12.3f %s (%+.1f%%)%n",
+                    verdict, entry.getKey(), before.score, now.score, now.unit, change * 100);
+        }
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private record Row(String mode, double score, String unit) {
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    /**
+     * Reads a JMH CSV file into rows keyed by benchmark name plus parameters.
+     */
+    private static Map<String, Row> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Row> rows = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = split(line);
+            StringBuilder key = new StringBuilder(fields.get(benchmark));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ")) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            rows.put(key.toString(), new Row(fields.get(mode),
+                    Double.parseDouble(fields.get(score).replace(',', '.')), fields.get(unit)));
+        }
+        return rows;
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,56 @@
+package de.vladistic.sokoban.bench;
+
+/**
+ * Synthetic square levels for the benchmarks: a walled room with a free corridor
+ * along the top, then alternating rows of crates and goals every fourth column.
+ */
+final class BenchLevels {
+    private BenchLevels() {
+    }
+
+    /**
+     * @param size The number of rows and columns, at least 5.
+     * @return The level in the native +++/--- notation, player in the top left corner.
+     */
+    static String nativeText(int size) {
+        StringBuilder text = new StringBuilder();
+        text.append("+++\n").append(size).append('x').append(size).append("\n1,1\n");
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                text.append(switch (cell(size, row, col)) {
+                    case '#' -> 'w';
+                    case '$' -> 'c';
+                    case '.' -> '*';
+                    default -> 'g';
+                });
+            }
+            text.append('\n');
+        }
+        return text.append("---\n").toString();
+    }
+
+    /**
+     * @param size The number of rows and columns, at least 5.
+     * @return The same level in XSB notation.
+     */
+    static String xsbText(int size) {
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                text.append(row == 1 && col == 1 ? '@' : cell(size, row, col));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static char cell(int size, int row, int col) {
+        if (row == 0 || col == 0 || row == size - 1 || col == size - 1) {
+            return '#';
+        }
+        if (row >= 3 && row < size - 2 && col % 4 == 2 && col < size - 2) {
+            return row % 3 == 0 ? '$' : row % 3 == 1 ? '.' : ' ';
+        }
+        return ' ';
+    }
+}
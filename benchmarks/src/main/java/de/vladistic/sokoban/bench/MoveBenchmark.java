@@ -0,0 +1,79 @@
+package de.vladistic.sokoban.bench;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.utils.LevelReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move logic behind {@code LevelController.tryMove} and the win check behind
+ * {@code checkVictory}, on the headless {@link Board}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+    @Param({"10", "32", "128"})
+    public int size;
+
+    private Board walkBoard;
+    private Board pushBoard;
+    private int walkDir = Board.RIGHT;
+
+    @Setup
+    public void setUp() {
+        walkBoard = LevelReader.parse(BenchLevels.nativeText(size)).toBoard();
+        pushBoard = walkBoard.copy();
+        // Stand above the first crate, the cell below it is free
+        while (pushBoard.getPlayerCol() < 2) {
+            pushBoard.move(Board.RIGHT);
+        }
+        pushBoard.move(Board.DOWN);
+    }
+
+    /**
+     * One step along the free top corridor, turning at the walls.
+     */
+    @Benchmark
+    public int walk() {
+        int result = walkBoard.move(walkDir);
+        if (result == Board.BLOCKED) {
+            walkDir = Board.opposite(walkDir);
+        }
+        return result;
+    }
+
+    /**
+     * A push and the undo that restores the position.
+     */
+    @Benchmark
+    public int pushAndUndo() {
+        int result = pushBoard.move(Board.DOWN);
+        pushBoard.unmove(Board.DOWN, true);
+        return result;
+    }
+
+    @Benchmark
+    public boolean canMove() {
+        return walkBoard.canMove(walkDir);
+    }
+
+    @Benchmark
+    public boolean checkVictory() {
+        return pushBoard.isSolved();
+    }
+}
@@ -0,0 +1,121 @@
+package de.vladistic.sokoban.bench;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.utils.BinaryLevelFormat;
+import de.vladistic.sokoban.utils.LevelCatalog;
+import de.vladistic.sokoban.utils.LevelReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Level parsing: a single level string as handed to {@code LevelController.setLevelData},
+ * and random access into a pack through {@link LevelCatalog}, which replaced the old
+ * parse-everything-at-startup approach. The binary benchmarks do the same on the
+ * pack converted by {@link BinaryLevelFormat}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final int PACK_LEVELS = 200;
+
+    @Param({"10", "32", "128"})
+    public int size;
+
+    private String nativeText;
+    private String xsbText;
+    private Path pack;
+    private LevelCatalog catalog;
+    private Path binaryPack;
+    private LevelCatalog binaryCatalog;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        nativeText = BenchLevels.nativeText(size);
+        xsbText = BenchLevels.xsbText(size);
+        pack = Files.createTempFile("bench-pack", ".txt");
+        Files.writeString(pack, nativeText.repeat(PACK_LEVELS), StandardCharsets.UTF_8);
+        catalog = LevelCatalog.open(pack.toUri().toURL(), null);
+        List<Level> levels = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            levels.add(catalog.get(i));
+        }
+        binaryPack = Files.createTempFile("bench-pack", ".skb");
+        try (OutputStream out = Files.newOutputStream(binaryPack)) {
+            BinaryLevelFormat.write(levels, out);
+        }
+        binaryCatalog = LevelCatalog.open(binaryPack.toUri().toURL(), null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(pack);
+        Files.deleteIfExists(binaryPack);
+    }
+
+    @Benchmark
+    public Level parseNative() {
+        return LevelReader.parse(nativeText);
+    }
+
+    @Benchmark
+    public Level parseXsb() {
+        return LevelReader.parse(xsbText);
+    }
+
+    /**
+     * The part of {@code setLevelData} before anything is drawn.
+     */
+    @Benchmark
+    public Board setLevelData() {
+        return LevelReader.parse(nativeText).toBoard();
+    }
+
+    @Benchmark
+    public Level catalogGet() throws IOException {
+        next = next + 1 == PACK_LEVELS ? 0 : next + 1;
+        return catalog.get(next);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public LevelCatalog catalogOpen() throws IOException {
+        return LevelCatalog.open(pack.toUri().toURL(), null);
+    }
+
+    @Benchmark
+    public Level binaryGet() throws IOException {
+        next = next + 1 == PACK_LEVELS ? 0 : next + 1;
+        return binaryCatalog.get(next);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public LevelCatalog binaryOpen() throws IOException {
+        return LevelCatalog.open(binaryPack.toUri().toURL(), null);
+    }
+}
@@ -0,0 +1,109 @@
+package de.vladistic.sokoban.bench;
+
+import de.vladistic.sokoban.BoardRenderer;
+import de.vladistic.sokoban.Viewport;
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.utils.LevelReader;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering through {@link BoardRenderer}, the code behind {@code drawAll} and
+ * {@code drawBackground}, on offscreen canvases of the default window size. Only
+ * the tiles in the viewport are drawn, so the scores should hardly depend on the
+ * level size once the level fills the window. The record benchmarks measure
+ * issuing the draw commands, which is what the game pays on the FX thread per
+ * frame; the rasterize benchmark also snapshots the canvas so the commands are
+ * actually executed by the graphics pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 640;
+
+    @Param({"10", "32", "128", "300"})
+    public int size;
+
+    private Board board;
+    private BoardRenderer renderer;
+    private Viewport view;
+    private Canvas background;
+    private Canvas foreground;
+
+    @Setup
+    public void setUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException alreadyStarted) {
+            started.countDown();
+        }
+        started.await();
+        board = LevelReader.parse(BenchLevels.nativeText(size)).toBoard();
+        FutureTask<Void> create = new FutureTask<>(() -> {
+            renderer = new BoardRenderer();
+            view = new Viewport();
+            view.setSize(WIDTH, HEIGHT);
+            view.setLevelSize(size, size);
+            view.centerOn(size / 2.0, size / 2.0);
+            background = new Canvas(WIDTH, HEIGHT);
+            foreground = new Canvas(WIDTH, HEIGHT);
+            return null;
+        });
+        Platform.runLater(create);
+        create.get();
+    }
+
+    /**
+     * Every full-canvas clear resets the canvas command buffer, so the buffer
+     * does not grow although the detached canvas is never rendered.
+     */
+    @Benchmark
+    public GraphicsContext recordDrawAll() {
+        GraphicsContext gc = foreground.getGraphicsContext2D();
+        renderer.drawCrates(gc, board, -1, view);
+        return gc;
+    }
+
+    @Benchmark
+    public GraphicsContext recordDrawBackground() {
+        GraphicsContext gc = background.getGraphicsContext2D();
+        renderer.drawBackground(gc, board, null, view);
+        return gc;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WritableImage rasterizeDrawAll() throws Exception {
+        FutureTask<WritableImage> frame = new FutureTask<>(() -> {
+            renderer.drawBackground(background.getGraphicsContext2D(), board, null, view);
+            renderer.drawCrates(foreground.getGraphicsContext2D(), board, -1, view);
+            background.snapshot(null, null);
+            return foreground.snapshot(null, null);
+        });
+        Platform.runLater(frame);
+        return frame.get();
+    }
+}
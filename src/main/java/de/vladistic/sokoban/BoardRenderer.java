@@ -0,0 +1,144 @@
+package de.vladistic.sokoban;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.DeadlockDetector;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws a {@link Board} tile by tile onto canvases, independent of any window.
+ * The static layout goes onto a background canvas, crates onto the foreground
+ * canvas above it. Only the tiles inside a {@link Viewport} are drawn, so the
+ * cost of a frame depends on the size of the window and not of the level.
+ * Used by {@link LevelController} and by the rendering benchmarks with
+ * offscreen canvases.
+ * <p>
+ * Sprites are scaled once per zoom step and kept, drawing never scales.
+ */
+public class BoardRenderer {
+    /** Edge length of a tile in the sprite images, in pixels. */
+    public static final int TILE = 64;
+    private static final Color DEAD_SQUARE = Color.rgb(200, 0, 0, 0.35);
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    private final Map<Integer, Image[]> spriteSets = new HashMap<>();
+    private Image[] sprites;
+    private int spriteSize = -1;
+
+    /**
+     * Returns the sprites at the tile size of the viewport, scaling them on first use.
+     */
+    private Image[] sprites(Viewport view) {
+        int size = view.getTileSize();
+        if (size != spriteSize) {
+            sprites = spriteSets.computeIfAbsent(size, s -> {
+                Image[] set = new Image[SPRITES.length];
+                for (Sprite sprite : SPRITES) {
+                    set[sprite.ordinal()] = sprite.image(s);
+                }
+                return set;
+            });
+            spriteSize = size;
+        }
+        return sprites;
+    }
+
+    /**
+     * Clears the background and draws the visible walls, ground and goals.
+     * @param gc The background canvas.
+     * @param board The board to draw.
+     * @param deadSquares Dead squares to highlight, or null.
+     * @param view The visible part of the board.
+     */
+    public void drawBackground(GraphicsContext gc, Board board, DeadlockDetector deadSquares, Viewport view) {
+        Image[] set = sprites(view);
+        int size = view.getTileSize();
+        gc.clearRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+        gc.setFill(DEAD_SQUARE);
+        int endCol = view.endCol();
+        int endRow = view.endRow();
+        for (int row = view.firstRow(); row < endRow; row++) {
+            double y = view.screenY(row);
+            for (int col = view.firstCol(); col < endCol; col++) {
+                int pos = board.index(row, col);
+                double x = view.screenX(col);
+                Sprite tile = board.isGoal(pos) ? Sprite.CRATE_TARGET
+                        : board.isWall(pos) ? Sprite.WALL : Sprite.GROUND;
+                gc.drawImage(set[tile.ordinal()], x, y);
+                if (deadSquares != null && deadSquares.isDead(pos)) {
+                    gc.fillRect(x, y, size, size);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the foreground and draws every visible crate.
+     * @param gc The foreground canvas.
+     * @param board The board to draw.
+     * @param hiddenCrate A crate cell to leave out because it is being animated, or -1.
+     * @param view The visible part of the board.
+     */
+    public void drawCrates(GraphicsContext gc, Board board, int hiddenCrate, Viewport view) {
+        Image[] set = sprites(view);
+        gc.clearRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+        int endCol = view.endCol();
+        int endRow = view.endRow();
+        for (int row = view.firstRow(); row < endRow; row++) {
+            for (int col = view.firstCol(); col < endCol; col++) {
+                int pos = board.index(row, col);
+                if (board.hasCrate(pos) && pos != hiddenCrate) {
+                    gc.drawImage(set[crateSprite(board.isGoal(pos)).ordinal()], view.screenX(col), view.screenY(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears a tile of the foreground and draws the crate resting on it, if any.
+     * Tiles outside the viewport are skipped.
+     * @param gc The foreground canvas.
+     * @param board The board to draw.
+     * @param pos The cell index of the tile.
+     * @param hiddenCrate A crate cell to leave out because it is being animated, or -1.
+     * @param view The visible part of the board.
+     */
+    public void drawTile(GraphicsContext gc, Board board, int pos, int hiddenCrate, Viewport view) {
+        int col = pos % board.getCols();
+        int row = pos / board.getCols();
+        if (!view.isVisible(col, row)) {
+            return;
+        }
+        double x = view.screenX(col);
+        double y = view.screenY(row);
+        int size = view.getTileSize();
+        gc.clearRect(x, y, size, size);
+        if (board.hasCrate(pos) && pos != hiddenCrate) {
+            gc.drawImage(sprites(view)[crateSprite(board.isGoal(pos)).ordinal()], x, y);
+        }
+    }
+
+    /**
+     * Draws a sprite at a position between tiles, used for animations.
+     * @param gc The foreground canvas.
+     * @param sprite The sprite to draw.
+     * @param col The column, fractions for positions between tiles.
+     * @param row The row.
+     * @param view The visible part of the board.
+     */
+    public void drawSprite(GraphicsContext gc, Sprite sprite, double col, double row, Viewport view) {
+        gc.drawImage(sprites(view)[sprite.ordinal()], Math.round(view.screenX(col)), Math.round(view.screenY(row)));
+    }
+
+    /**
+     * @param onGoal true if the crate stands on a goal.
+     * @return The sprite of a crate.
+     */
+    public Sprite crateSprite(boolean onGoal) {
+        return onGoal ? Sprite.CRATE_ON_TARGET : Sprite.CRATE;
+    }
+}
@@ -1,7 +0,0 @@
-package de.vladistic.sokoban;
-
-public class Crate extends Field{
-    public Crate() {
-        super("projekt/crate.png");
-    }
-}
@@ -0,0 +1,215 @@
+package de.vladistic.sokoban;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where the time goes while playing: histograms of frame intervals, the work done
+ * per animation frame, full redraws, input-to-frame latency, bytes allocated per
+ * move and level load times, plus the garbage collections since startup.
+ * <p>
+ * Recording takes a clock read and an array increment and allocates nothing, so it
+ * is always on. The game records on the FX thread; {@link #dump(Path)} may run on
+ * another thread, e.g. at exit, so the histograms are synchronized.
+ * <p>
+ * Started with {@code -Dsokoban.metrics=<file>}, the report is written to that file
+ * when the JVM exits.
+ */
+public final class GameMetrics {
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    static {
+        String file = System.getProperty("sokoban.metrics");
+        if (file != null && !file.isBlank()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    INSTANCE.dump(Path.of(file));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "metrics-dump"));
+        }
+    }
+
+    /**
+     * Log-linear histogram of non-negative values: exact below 8, above that every
+     * power of two is split into 8 buckets, so percentiles are within 12.5%.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        public synchronized void record(long value) {
+            value = Math.max(0, value);
+            counts[bucket(value)]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() { return count; }
+        public synchronized long getMax() { return max; }
+        public synchronized long getMean() { return count == 0 ? 0 : sum / count; }
+
+        /**
+         * @param fraction The fraction of values below the result, e.g. 0.99.
+         * @return The upper bound of the bucket holding that value, 0 if nothing was recorded.
+         */
+        public synchronized long percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        public synchronized void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            sum = 0;
+            max = 0;
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB) {
+                return (int) value;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB - 1);
+            return (exp - SUB_BITS + 1) * SUB + sub;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < SUB) {
+                return bucket;
+            }
+            int exp = bucket / SUB + SUB_BITS - 1;
+            long lower = (long) (SUB + bucket % SUB) << (exp - SUB_BITS);
+            return lower + (1L << (exp - SUB_BITS)) - 1;
+        }
+    }
+
+    /** Time between two pulses of the game loop, long ones are stutters. */
+    public final Histogram frameInterval = new Histogram();
+    /** Time spent in the game loop on frames that animate. */
+    public final Histogram frameWork = new Histogram();
+    /** Time of full redraws of the visible board, the drawAll path. */
+    public final Histogram fullRedraw = new Histogram();
+    /** From the key press to the end of the pulse that first shows the step. */
+    public final Histogram inputLatency = new Histogram();
+    /** Bytes allocated on the FX thread from the start of a step to the end of its animation. */
+    public final Histogram allocationPerMove = new Histogram();
+    /** From reading the level until it is set up and drawn. */
+    public final Histogram levelLoad = new Histogram();
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long gcCountAtStart;
+    private final long gcTimeAtStart;
+
+    private GameMetrics() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threads = bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()
+                ? sun : null;
+        gcCountAtStart = gcCount();
+        gcTimeAtStart = gcTime();
+    }
+
+    /**
+     * @return The metrics of this process.
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return The bytes allocated so far by the calling thread, -1 if the JVM cannot tell.
+     */
+    public long allocatedBytes() {
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * @return One line for the status bar.
+     */
+    public String summary() {
+        return String.format("Frame p50 %.1f / p99 %.1f / max %.1f ms | Work p99 %.2f ms | Input p99 %.0f ms"
+                        + " | Alloc/move %.1f KB | Load max %.0f ms | GC %d (%d ms)",
+                frameInterval.percentile(0.5) / 1e6, frameInterval.percentile(0.99) / 1e6,
+                frameInterval.getMax() / 1e6, frameWork.percentile(0.99) / 1e6,
+                inputLatency.percentile(0.99) / 1e6, allocationPerMove.getMean() / 1024.0,
+                levelLoad.percentile(1.0) / 1e6, gcCount() - gcCountAtStart, gcTime() - gcTimeAtStart);
+    }
+
+    /**
+     * Writes the full report.
+     * @param out The writer, not closed.
+     */
+    public void report(Writer out) {
+        PrintWriter print = new PrintWriter(out);
+        print.println("Sokoban metrics " + LocalDateTime.now());
+        print.printf("%-22s %8s %10s %10s %10s %10s %10s%n", "", "count", "mean", "p50", "p90", "p99", "max");
+        row(print, "frame interval (ms)", frameInterval, 1e6);
+        row(print, "frame work (ms)", frameWork, 1e6);
+        row(print, "full redraw (ms)", fullRedraw, 1e6);
+        row(print, "input latency (ms)", inputLatency, 1e6);
+        row(print, "alloc per move (KB)", allocationPerMove, 1024);
+        row(print, "level load (ms)", levelLoad, 1e6);
+        for (GarbageCollectorMXBean gc : collectors) {
+            print.printf("GC %-19s %8d collections, %d ms total%n",
+                    gc.getName(), gc.getCollectionCount(), gc.getCollectionTime());
+        }
+        print.flush();
+    }
+
+    private static void row(PrintWriter print, String name, Histogram histogram, double unit) {
+        print.printf("%-22s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", name, histogram.getCount(),
+                histogram.getMean() / unit, histogram.percentile(0.5) / unit, histogram.percentile(0.9) / unit,
+                histogram.percentile(0.99) / unit, histogram.getMax() / unit);
+    }
+
+    /**
+     * Writes the full report to a file.
+     * @param file The file, replaced if it exists.
+     * @throws IOException If the file cannot be written.
+     */
+    public void dump(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            report(out);
+        }
+    }
+}
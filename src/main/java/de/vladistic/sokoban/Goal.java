@@ -1,7 +0,0 @@
-package de.vladistic.sokoban;
-
-public class Goal extends Field{
-    public Goal() {
-        super("projekt/goal.png");
-    }
-}
@@ -1,7 +0,0 @@
-package de.vladistic.sokoban;
-
-public class GreenCrate extends Field {
-    public GreenCrate() {
-        super("projekt/crate_on_target.png");
-    }
-}
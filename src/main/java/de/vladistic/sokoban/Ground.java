@@ -1,8 +0,0 @@
-package de.vladistic.sokoban;
-
-public class Ground extends Field{
-    public Ground() {
-        super("projekt/ground.png");
-    }
-
-}
@@ -1,124 +1,255 @@
 package de.vladistic.sokoban;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.DeadlockDetector;
+import de.vladistic.sokoban.engine.MoveJournal;
+import de.vladistic.sokoban.engine.PathFinder;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.events.LevelStartEvent;
+import de.vladistic.sokoban.events.MoveEvent;
+import de.vladistic.sokoban.events.RenderEvent;
+import de.vladistic.sokoban.events.VictoryCheckEvent;
+import de.vladistic.sokoban.solver.HintFinder;
+import de.vladistic.sokoban.solver.PushPlanner;
+import de.vladistic.sokoban.utils.LevelReader;
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
 import javafx.scene.control.MenuItem;
+import javafx.scene.Cursor;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.HBox;
-import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
 import javafx.scene.text.Text;
-import javafx.util.Duration;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class LevelController {
     private int COLS = 16;
     private int ROWS = 10;
-    private static final int TILE = Field.TILE; // 64
-    private boolean isAnimating = false;
+    private static final int TILE = BoardRenderer.TILE; // 64
 
-    private Field[][] grid;
-private boolean[][] isGoal; // Speichert, ob an dieser Position ein Ziel ist
-private Image crateOnTargetImg = new Image(Objects.requireNonNull(getClass().getResourceAsStream("projekt/crate_on_target.png")));
-private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getResourceAsStream("projekt/crate_target.png")));
+    // Phases of the game loop, input is only accepted while IDLE
+    private static final int IDLE = 0;
+    private static final int CRATE = 1;
+    private static final int PLAYER = 2;
+    private static final int COOLDOWN = 3;
+    private static final int VICTORY = 4;
+    private static final int WALK = 5;
+
+    private static final long CRATE_NANOS = 400_000_000L;
+    private static final long PLAYER_NANOS = 200_000_000L;
+    private static final long COOLDOWN_NANOS = 100_000_000L;
+    /** Time per tile of a walk to a clicked cell, shortened for long walks. */
+    private static final long WALK_STEP_NANOS = 80_000_000L;
+    private static final long WALK_MAX_NANOS = 1_500_000_000L;
+    private static final int VICTORY_SECONDS = 10;
+
+    /** Directional presses kept while an animation runs, further presses are dropped. */
+    private static final int INPUT_QUEUE_SIZE = 8;
+    /** In turbo mode, steps are not animated at all once this many presses are waiting. */
+    private static final int TURBO_SKIP = 3;
+    /** How often the metrics overlay is refreshed while shown. */
+    private static final long METRICS_REFRESH_NANOS = 500_000_000L;
+
+    /**
+     * Hint searches run one at a time on a single background thread, shared by all levels.
+     * Its low priority leaves the cores to the FX and render threads.
+     */
+    private static final ExecutorService HINT_SEARCH = backgroundThread("hint-search", Thread.MIN_PRIORITY);
+    /** Push plans for dragged crates, one at a time like the hints. The player waits for them. */
+    private static final ExecutorService PUSH_PLANNING = backgroundThread("push-planner", Thread.NORM_PRIORITY);
+
+    private Board board;
+    private DeadlockDetector deadlocks;
+    private PathFinder paths;
+    private HintFinder hints;
+    private boolean deadlocked = false;
+    private final MoveJournal journal = new MoveJournal();
+    private final BoardRenderer renderer = new BoardRenderer();
+    private final Viewport viewport = new Viewport();
+    private final GameMetrics metrics = GameMetrics.get();
 
     private Player player;
     private GraphicsContext gc;
-    private int seconds = 0;
+    private GraphicsContext backgroundGc;
 
+    @FXML private Canvas backgroundCanvas;
     @FXML private Canvas canvas;
+    @FXML private Pane viewportPane;
     @FXML private MenuItem menuClose;
     @FXML private MenuItem menuDelete;
+    @FXML private MenuItem menuUndo;
+    @FXML private MenuItem menuRedo;
+    @FXML private MenuItem menuHint;
+    @FXML private MenuItem menuCopyMoves;
     @FXML private MenuItem menuAbout;
+    @FXML private CheckMenuItem menuDeadSquares;
+    @FXML private CheckMenuItem menuTurbo;
+    @FXML private MenuItem menuZoomIn;
+    @FXML private MenuItem menuZoomOut;
+    @FXML private MenuItem menuZoomReset;
+    @FXML private CheckMenuItem menuMetrics;
+    @FXML private MenuItem menuSaveMetrics;
     @FXML private HBox statusBar;
     @FXML private Label versionLabel;
     @FXML private Label timerLabel;
     @FXML private Label moveCountLabel;
+    @FXML private Label cratesPlacedLabel;
+    @FXML private Label metricsLabel;
     
-    private volatile boolean running = true;
     private int moveCount = 0;
-    private Thread timerThread;
-    private Timeline cooldownTimeline;
+
+    /** Drives all animations and the clock from the pulse time, see {@link #onFrame(long)}. */
+    private final AnimationTimer loop = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onFrame(now);
+        }
+    };
+    private int phase = IDLE;
+    private long phaseStart;
+    private long phaseDuration;
+    private int animFrom;
+    private int animTo;
+    private double fromX, fromY, toX, toY; // In tiles
+    private int pendingDir;
+    private Sprite movingCrateSprite;
+    private int[] walkCells;    // Cells of a walk to a clicked cell, the player's cell first
+    private int[] walkSteps;
+    private int walkSegment;
+    private long walkStepNanos;
+    private int shownCountdown;
+
+    private final int[] inputQueue = new int[INPUT_QUEUE_SIZE];
+    private int inputHead = 0;
+    private int inputCount = 0;
+    private final long[] inputTimes = new long[INPUT_QUEUE_SIZE];
+
+    // Dragging a crate onto a cell plans the pushes off the FX thread, then plays them like input
+    private int draggedCrate = -1;
+    private Task<String> planTask;
+    private int pendingCrate = -1;  // Drag dropped while the player was busy, planned once idle
+    private int pendingTarget;
+    private Task<HintFinder.Hint> hintTask;
+    private String plan;        // LURD steps still to play, null if none
+    private int planIndex;
+
+    // Metrics state, see GameMetrics
+    private final Runnable pulseEnd = this::onPulseEnd;
+    private long lastPulse = 0;
+    private long inputPressed = 0;   // Key press time of the step being started, 0 if none
+    private long latencyFrom = 0;    // Key press time of the step not yet on screen, 0 if none
+    private boolean latencyDrawn = false;
+    private long moveAllocStart = -1;
+    private MoveEvent moveEvent;     // Only while a flight recording wants it
+    private long shownMetrics = 0;
+
+    private boolean clockRunning = false;
+    private long clockStart;
+    private long clockElapsed = 0;
+    private long shownMillis = -1;
+    private final char[] clockText = "Time: 00:00.000".toCharArray();
 
     /**
      * Sets the level data for the game.
-     * @param levelData The level data to set.
+     * @param levelData The level data to set, in any notation understood by {@link LevelReader}.
      */
     public void setLevelData(String levelData) {
-        String[] lines = levelData.split("\n");
-        
-        // Parse dimensions (second line)
-        String[] dimensions = lines[1].trim().split("x");
-        ROWS = Integer.parseInt(dimensions[1]);
-        COLS = Integer.parseInt(dimensions[0]);
-
-        // Parse player position (third line)
-        String[] playerPos = lines[2].trim().split(",");
-        int playerRow = Integer.parseInt(playerPos[0]);
-        int playerCol = Integer.parseInt(playerPos[1]);
-
-        // Initialize grid and isGoal with correct dimensions
-        grid = new Field[ROWS][COLS];
-        isGoal = new boolean[ROWS][COLS];
-
-        // Parse level layout (starting from fourth line)
-        for (int r = 0; r < ROWS; r++) {
-            String line = lines[r + 3];
-            for (int c = 0; c < COLS; c++) {
-                char tile = line.charAt(c);
-                switch (tile) {
-                    case 'w' -> grid[r][c] = new Wall();
-                    case 'g' -> grid[r][c] = new Ground();
-                    case 'c' -> grid[r][c] = new Crate();
-                    case '*' -> {
-                        grid[r][c] = new Goal();
-                        isGoal[r][c] = true;
-                    }
-                }
-            }
+        long start = System.nanoTime();
+        setLevel(LevelReader.parse(levelData));
+        metrics.levelLoad.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Starts the given level.
+     * @param level The level to play.
+     */
+    public void setLevel(Level level) {
+        LevelStartEvent event = LevelStartEvent.enabled() ? new LevelStartEvent() : null;
+        if (event != null) {
+            event.begin();
         }
-        
+        board = level.toBoard();
+        ROWS = board.getRows();
+        COLS = board.getCols();
+        // The analysis assumes every crate needs a goal
+        deadlocks = level.getCrateCount() == board.getGoalCount() ? new DeadlockDetector(board) : null;
+        deadlocked = false;
+        paths = new PathFinder(board);
+        hints = new HintFinder();
+        journal.clear();
+        inputCount = 0;
+        cancelPlan();
+        moveEvent = null;
+
+        updateCratesPlaced();
+
         // Create player at specified position
-        player = new Player(playerRow, playerCol);
+        player = new Player(board.getPlayerRow(), board.getPlayerCol());
         
-        // Update canvas size based on level dimensions
-        canvas.setWidth(COLS * TILE);
-        canvas.setHeight(ROWS * TILE);
+        // The canvases keep the size of the window, the viewport scrolls over the level
+        viewport.setLevelSize(COLS, ROWS);
+        viewport.centerOn(player.getCol(), player.getRow());
         
         // Start the timer
         startTimer();
         
         // Draw the level
-        drawAll();
+        drawView();
+
+        if (event != null) {
+            event.rows = ROWS;
+            event.cols = COLS;
+            event.crates = level.getCrateCount();
+            event.goals = board.getGoalCount();
+            event.deadSquares = deadlocks != null ? deadlocks.getDeadSquareCount() : 0;
+            event.commit();
+        }
     }
 
     /**
      * Starts or restarts the game timer.
      */
     public void startTimer() {
-        startTimerThread();
+        clockStart = System.nanoTime();
+        clockElapsed = 0;
+        clockRunning = true;
+        updateTimerLabel();
     }
     
     /**
      * Stops the game timer.
      */
     public void stopTimer() {
-        stopTimerThread();
+        if (clockRunning) {
+            clockElapsed = System.nanoTime() - clockStart;
+            clockRunning = false;
+            updateTimerLabel();
+        }
     }
     
     /**
      * Resets the game timer and move counter.
      */
     public void resetTimer() {
-        seconds = 0;
+        clockStart = System.nanoTime();
+        clockElapsed = 0;
         moveCount = 0;
         updateTimerLabel();
         updateMoveCount();
@@ -127,81 +258,550 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
     @FXML
     public void initialize() {
         gc = canvas.getGraphicsContext2D();
+        backgroundGc = backgroundCanvas.getGraphicsContext2D();
+
+        // The canvases fill the window whatever the size of the level
+        canvas.widthProperty().bind(viewportPane.widthProperty());
+        canvas.heightProperty().bind(viewportPane.heightProperty());
+        backgroundCanvas.widthProperty().bind(viewportPane.widthProperty());
+        backgroundCanvas.heightProperty().bind(viewportPane.heightProperty());
+        viewportPane.widthProperty().addListener((obs, old, width) -> resizeView());
+        viewportPane.heightProperty().addListener((obs, old, height) -> resizeView());
         
         // Initialize move counter
         updateMoveCount();
         
-        // Start the timer thread
-        startTimerThread();
+        // One loop for animations and the clock, running as long as the level is shown
+        loop.start();
+
+        // Input latency is measured up to the end of the pulse that shows a step
+        canvas.sceneProperty().addListener((obs, old, scene) -> {
+            if (old != null) {
+                old.removePostLayoutPulseListener(pulseEnd);
+            }
+            if (scene != null) {
+                scene.addPostLayoutPulseListener(pulseEnd);
+            }
+        });
 
         // Key-Handling
         canvas.setFocusTraversable(true);
         canvas.setOnKeyPressed(evt -> {
-            if (isAnimating) {
-                evt.consume();
-                return;
-            }
-            
+            long pressed = System.nanoTime();
             KeyCode kc = evt.getCode();
             if (kc == KeyCode.LEFT) {
-                tryMove(0, -1, player.left);
+                queueMove(Board.LEFT, pressed);
             } else if (kc == KeyCode.RIGHT) {
-                tryMove(0, +1, player.right);
+                queueMove(Board.RIGHT, pressed);
             } else if (kc == KeyCode.UP) {
-                tryMove(-1, 0, player.up);
+                queueMove(Board.UP, pressed);
             } else if (kc == KeyCode.DOWN) {
-                tryMove(+1, 0, player.down);
+                queueMove(Board.DOWN, pressed);
             }
             
             evt.consume();
         });
+        canvas.setOnMouseClicked(evt -> {
+            // Releasing a drag is not a click
+            if (evt.getButton() == MouseButton.PRIMARY && evt.isStillSincePress()) {
+                walkTo(viewport.rowAt(evt.getY()), viewport.colAt(evt.getX()));
+            }
+            canvas.requestFocus();
+        });
+        canvas.setOnMouseMoved(evt -> {
+            if (planTask != null || pendingCrate >= 0) {
+                return; // Keeps the wait cursor
+            }
+            int pos = cellAt(evt.getX(), evt.getY());
+            boolean active = pos >= 0 && !gameWon;
+            canvas.setCursor(active && board.hasCrate(pos) ? Cursor.OPEN_HAND
+                    : active && paths.isReachable(pos) ? Cursor.HAND : Cursor.DEFAULT);
+        });
+        canvas.setOnMousePressed(evt -> {
+            int pos = cellAt(evt.getX(), evt.getY());
+            if (evt.getButton() == MouseButton.PRIMARY && pos >= 0 && !gameWon && board.hasCrate(pos)) {
+                draggedCrate = pos;
+                canvas.setCursor(Cursor.CLOSED_HAND);
+            }
+        });
+        canvas.setOnMouseReleased(evt -> {
+            if (draggedCrate < 0) {
+                return;
+            }
+            int crate = draggedCrate;
+            draggedCrate = -1;
+            canvas.setCursor(Cursor.DEFAULT);
+            int target = cellAt(evt.getX(), evt.getY());
+            if (target >= 0 && target != crate) {
+                planPush(crate, target);
+            }
+        });
+        canvas.setOnScroll(evt -> {
+            if (evt.isShortcutDown() && evt.getDeltaY() != 0) {
+                zoom(evt.getDeltaY() > 0 ? 1 : -1);
+                evt.consume();
+            }
+        });
 
         // Menu‑Actions
         menuClose.setOnAction(e -> System.exit(0));
         menuAbout.setOnAction(e -> versionLabel.setText("Sokoban v0.2"));
         menuDelete.setOnAction(e -> stopTimer());
+        menuUndo.setOnAction(e -> undo());
+        menuRedo.setOnAction(e -> redo());
+        menuHint.setOnAction(e -> showHint());
+        menuCopyMoves.setOnAction(e -> {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(journal.toLurd());
+            Clipboard.getSystemClipboard().setContent(content);
+        });
+        menuDeadSquares.setOnAction(e -> {
+            if (board != null && !gameWon) {
+                drawBackground();
+            }
+        });
+        menuMetrics.setOnAction(e -> {
+            metricsLabel.setVisible(menuMetrics.isSelected());
+            metricsLabel.setManaged(menuMetrics.isSelected());
+            shownMetrics = 0;
+        });
+        menuSaveMetrics.setOnAction(e -> saveMetrics());
+        menuZoomIn.setOnAction(e -> zoom(1));
+        menuZoomOut.setOnAction(e -> zoom(-1));
+        menuZoomReset.setOnAction(e -> {
+            if (viewport.resetZoom()) {
+                zoomChanged();
+            }
+        });
     }
 
-    private void startTimerThread() {
-        // Stop any existing timer thread
-        stopTimerThread();
-        
-        // Reset seconds and update display
-        seconds = 0;
-        updateTimerLabel();
-        
-        // Create and start new timer thread
-        running = true;
-        timerThread = new Thread(() -> {
-            while (running) {
-                try {
-                    Thread.sleep(1000);
-                    seconds++;
-                    javafx.application.Platform.runLater(this::updateTimerLabel);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+    /**
+     * Zooms the viewport in or out by a number of steps.
+     * @param steps Positive to zoom in, negative to zoom out.
+     */
+    private void zoom(int steps) {
+        if (viewport.zoom(steps)) {
+            zoomChanged();
+        }
+    }
+
+    private void zoomChanged() {
+        if (board != null) {
+            viewport.centerOn(player.getX() / TILE, player.getY() / TILE);
+            drawView();
+        }
+    }
+
+    /**
+     * Follows a change of the window size. The canvases have already been resized
+     * by their bindings, which leaves their content undefined.
+     */
+    private void resizeView() {
+        // The level is set before the first layout, it is only centred once the size is known
+        boolean firstLayout = viewport.getWidth() == 0 || viewport.getHeight() == 0;
+        viewport.setSize(viewportPane.getWidth(), viewportPane.getHeight());
+        if (board != null) {
+            if (firstLayout) {
+                viewport.centerOn(player.getX() / TILE, player.getY() / TILE);
+            } else {
+                viewport.follow(player.getX() / TILE, player.getY() / TILE);
+            }
+            drawView();
+        }
+    }
+
+    /**
+     * Called by the loop once per pulse with the pulse time in nanoseconds. Animations
+     * are positioned by the time since they started, so their speed does not depend on
+     * the frame rate. Nothing is allocated here while a level is played, apart from the
+     * clock text when the displayed millisecond changes.
+     * @param now The pulse time, on the same time base as {@link System#nanoTime()}.
+     */
+    private void onFrame(long now) {
+        if (lastPulse != 0) {
+            metrics.frameInterval.record(now - lastPulse);
+        }
+        lastPulse = now;
+        long workStart = System.nanoTime();
+        boolean animating = phase == CRATE || phase == PLAYER || phase == WALK;
+        latencyDrawn |= animating;
+        if (clockRunning) {
+            clockElapsed = Math.max(0, now - clockStart);
+            updateTimerLabel();
+        }
+        switch (phase) {
+            case CRATE -> {
+                double t = progress(now);
+                // Repaint the tiles the crate moves between
+                markDirty(animFrom);
+                markDirty(animTo);
+                if (t >= 1) {
+                    // Final position - the crate is drawn as part of its tile again
+                    movingCrate = -1;
+                    drawDirty();
+                    // Now animate the player movement
+                    startPlayerStep(pendingDir, now);
+                    if (checkVictory()) {
+                        showVictoryMessage();
+                    }
+                } else if (drawDirty()) {
+                    double eased = ease(t);
+                    renderer.drawSprite(gc, movingCrateSprite, fromX + (toX - fromX) * eased,
+                            fromY + (toY - fromY) * eased, viewport);
+                }
+            }
+            case PLAYER -> {
+                double t = progress(now);
+                double eased = ease(t);
+                player.setPixelPosition((fromX + (toX - fromX) * eased) * TILE,
+                        (fromY + (toY - fromY) * eased) * TILE);
+                // Repaint only the two tiles the player moves between, unless the view scrolls
+                markDirty(animFrom);
+                markDirty(animTo);
+                showPlayer();
+                if (t >= 1) {
+                    phase = COOLDOWN;
+                    phaseStart = now;
+                    endMove();
                 }
             }
+            case COOLDOWN -> {
+                // Queued presses and planned pushes skip the cooldown, it only debounces single taps
+                if (inputCount > 0 || plan != null || pendingCrate >= 0 || now - phaseStart >= COOLDOWN_NANOS) {
+                    phase = IDLE;
+                }
+            }
+            case WALK -> stepWalk(now);
+            case VICTORY -> updateCountdown(now);
+            default -> { }
+        }
+        drainInput();
+        if (animating) {
+            metrics.frameWork.record(System.nanoTime() - workStart);
+        }
+        if (metricsLabel.isVisible() && now - shownMetrics >= METRICS_REFRESH_NANOS) {
+            shownMetrics = now;
+            metricsLabel.setText(metrics.summary());
+        }
+    }
+
+    /**
+     * Runs after the layout of every pulse, just before the scene is rendered.
+     * Completes the latency measurement of a step once a frame has shown it.
+     */
+    private void onPulseEnd() {
+        if (latencyFrom != 0 && latencyDrawn) {
+            metrics.inputLatency.record(System.nanoTime() - latencyFrom);
+            latencyFrom = 0;
+        }
+    }
+
+    /**
+     * Starts the allocation and latency measurements of a step that was played.
+     * @param allocStart The bytes allocated by the FX thread before the step.
+     */
+    private void beginMove(long allocStart) {
+        moveAllocStart = allocStart;
+        if (inputPressed != 0) {
+            latencyFrom = inputPressed;
+            latencyDrawn = false;
+        }
+    }
+
+    /**
+     * Records the bytes allocated for the step that just finished and commits its flight recorder event.
+     */
+    private void endMove() {
+        if (moveEvent != null) {
+            moveEvent.commit();
+            moveEvent = null;
+        }
+        if (moveAllocStart >= 0) {
+            long allocated = metrics.allocatedBytes();
+            if (allocated >= 0) {
+                metrics.allocationPerMove.record(allocated - moveAllocStart);
+            }
+            moveAllocStart = -1;
+        }
+    }
+
+    /**
+     * Writes the metrics report to a file chosen by the user.
+     */
+    private void saveMetrics() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save metrics");
+        chooser.setInitialFileName("sokoban-metrics.txt");
+        File file = chooser.showSaveDialog(canvas.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            metrics.dump(file.toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Queues a directional press and runs it right away if nothing is animating.
+     * @param dir The direction, one of the {@link Board} direction constants.
+     * @param pressed The time of the key press, for the latency metrics.
+     */
+    private void queueMove(int dir, long pressed) {
+        if (gameWon || board == null) {
+            return;
+        }
+        cancelPlan(); // Keys take over from a planned push
+        if (inputCount < INPUT_QUEUE_SIZE) {
+            int slot = (inputHead + inputCount) % INPUT_QUEUE_SIZE;
+            inputQueue[slot] = dir;
+            inputTimes[slot] = pressed;
+            inputCount++;
+        }
+        drainInput();
+    }
+
+    /**
+     * Runs queued presses in order until one starts an animation. Blocked moves and
+     * steps skipped by turbo mode do not, so several can run within one frame.
+     * Without presses, the next steps of a planned push are played.
+     */
+    private void drainInput() {
+        while (phase == IDLE && !gameWon) {
+            if (inputCount > 0) {
+                int dir = inputQueue[inputHead];
+                inputPressed = inputTimes[inputHead];
+                inputHead = (inputHead + 1) % INPUT_QUEUE_SIZE;
+                inputCount--;
+                tryMove(dir);
+            } else if (plan != null) {
+                playPlan();
+            } else if (pendingCrate >= 0) {
+                int crate = pendingCrate;
+                pendingCrate = -1;
+                canvas.setCursor(Cursor.DEFAULT);
+                if (board.hasCrate(crate)) {
+                    planPush(crate, pendingTarget);
+                }
+            } else {
+                break;
+            }
+        }
+        inputPressed = 0;
+    }
+
+    /**
+     * Plans the pushes that move a crate to a cell on a background thread. The
+     * steps are played once the plan is ready, unless the player moved before.
+     * While a step is animated or presses are queued, planning waits until they are done.
+     * @param crate The cell of the dragged crate.
+     * @param target The cell it was dropped on.
+     */
+    private void planPush(int crate, int target) {
+        cancelPlan();
+        if (board == null || gameWon) {
+            return;
+        }
+        if (phase != IDLE || inputCount > 0) {
+            pendingCrate = crate;
+            pendingTarget = target;
+            canvas.setCursor(Cursor.WAIT);
+            return;
+        }
+        Board start = board.copy();
+        int version = board.getCrateVersion();
+        int from = board.getPlayer();
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() {
+                return PushPlanner.plan(start, crate, target);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task != planTask) {
+                return;
+            }
+            planTask = null;
+            canvas.setCursor(Cursor.DEFAULT);
+            String moves = task.getValue();
+            if (moves != null && !moves.isEmpty() && !gameWon
+                    && board.getCrateVersion() == version && board.getPlayer() == from) {
+                plan = moves;
+                planIndex = 0;
+                drainInput();
+            }
         });
-        timerThread.setDaemon(true);
-        timerThread.start();
+        task.setOnFailed(e -> {
+            if (task == planTask) {
+                planTask = null;
+                canvas.setCursor(Cursor.DEFAULT);
+            }
+            task.getException().printStackTrace();
+        });
+        planTask = task;
+        canvas.setCursor(Cursor.WAIT);
+        PUSH_PLANNING.execute(task);
     }
-    
-    private void stopTimerThread() {
-        running = false;
-        if (timerThread != null) {
-            timerThread.interrupt();
-            timerThread = null;
+
+    /**
+     * Searches the next push towards a solution on the hint thread and plays it,
+     * together with the walk to it, unless the player moved in the meantime.
+     */
+    private void showHint() {
+        cancelPlan();
+        if (board == null || gameWon || phase != IDLE || inputCount > 0) {
+            return;
         }
+        Board start = board.copy();
+        int version = board.getCrateVersion();
+        int from = board.getPlayer();
+        HintFinder finder = hints;
+        Task<HintFinder.Hint> task = new Task<>() {
+            @Override
+            protected HintFinder.Hint call() {
+                return finder.next(start);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task != hintTask) {
+                return;
+            }
+            hintTask = null;
+            HintFinder.Hint hint = task.getValue();
+            if (gameWon || board.getCrateVersion() != version || board.getPlayer() != from) {
+                return;
+            }
+            if (hint == null) {
+                versionLabel.setText("No solution found from here");
+            } else if (!hint.getMoves().isEmpty()) {
+                versionLabel.setText("Hint: " + hint.getPushesLeft() + " pushes left after this one");
+                plan = hint.getMoves();
+                planIndex = 0;
+                drainInput();
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task == hintTask) {
+                hintTask = null;
+            }
+            task.getException().printStackTrace();
+        });
+        hintTask = task;
+        versionLabel.setText("Searching for a hint...");
+        HINT_SEARCH.execute(task);
     }
-    
+
+    /**
+     * Stops a running or waiting plan or hint search and drops the steps not played yet.
+     */
+    private void cancelPlan() {
+        if (planTask != null || pendingCrate >= 0) {
+            if (planTask != null) {
+                planTask.cancel(true);
+            }
+            planTask = null;
+            pendingCrate = -1;
+            canvas.setCursor(Cursor.DEFAULT);
+        }
+        if (hintTask != null) {
+            hintTask.cancel(true);
+            hintTask = null;
+            versionLabel.setText("Hint cancelled");
+        }
+        plan = null;
+    }
+
+    /**
+     * Plays the next push of the plan, or the walk leading to it as one animation.
+     */
+    private void playPlan() {
+        char step = plan.charAt(planIndex);
+        int before = board.getPlayer();
+        if (Character.isUpperCase(step)) {
+            planIndex++;
+            tryMove(Board.fromLurd(step));
+        } else {
+            int end = planIndex;
+            while (end < plan.length() && Character.isLowerCase(plan.charAt(end))) {
+                end++;
+            }
+            int[] steps = new int[end - planIndex];
+            for (int i = 0; i < steps.length; i++) {
+                steps[i] = Board.fromLurd(plan.charAt(planIndex + i));
+            }
+            planIndex = end;
+            startWalk(steps);
+        }
+        if (planIndex == plan.length() || board.getPlayer() == before) {
+            plan = null;
+        }
+    }
+
+    /**
+     * @return The cell under a point of the canvas, -1 if there is none.
+     */
+    private int cellAt(double x, double y) {
+        int row = viewport.rowAt(y);
+        int col = viewport.colAt(x);
+        return board != null && row >= 0 && row < ROWS && col >= 0 && col < COLS ? board.index(row, col) : -1;
+    }
+
+    /**
+     * @return The duration of a phase, shortened in turbo mode while presses are queued.
+     */
+    private long duration(long nanos) {
+        return menuTurbo.isSelected() ? nanos / (1 + inputCount) : nanos;
+    }
+
+    /**
+     * @return The fraction of the current phase that has passed, between 0 and 1.
+     */
+    private double progress(long now) {
+        return Math.min(1.0, Math.max(0, now - phaseStart) / (double) phaseDuration);
+    }
+
+    /**
+     * Quadratic ease-in-out.
+     */
+    private static double ease(double t) {
+        return t < 0.5 ? 2 * t * t : 1 - Math.pow(-2 * t + 2, 2) / 2;
+    }
+
+    /**
+     * @return An executor running tasks one at a time on a daemon thread, which does not keep the game open.
+     */
+    private static ExecutorService backgroundThread(String name, int priority) {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        });
+    }
+
     private void updateTimerLabel() {
-        if (timerLabel != null) {
-            int minutes = seconds / 60;
-            int remainingSeconds = seconds % 60;
-            timerLabel.setText(String.format("Time: %02d:%02d", minutes, remainingSeconds));
+        long millis = clockElapsed / 1_000_000;
+        if (timerLabel == null || millis == shownMillis) {
+            return;
+        }
+        shownMillis = millis;
+        long minutes = millis / 60_000;
+        if (minutes > 99) {
+            timerLabel.setText(String.format("Time: %d:%02d.%03d", minutes, millis / 1000 % 60, millis % 1000));
+            return;
         }
+        // "Time: mm:ss.SSS", digits written into a reused buffer
+        int seconds = (int) (millis / 1000 % 60);
+        int ms = (int) (millis % 1000);
+        clockText[6] = (char) ('0' + minutes / 10);
+        clockText[7] = (char) ('0' + minutes % 10);
+        clockText[9] = (char) ('0' + seconds / 10);
+        clockText[10] = (char) ('0' + seconds % 10);
+        clockText[12] = (char) ('0' + ms / 100);
+        clockText[13] = (char) ('0' + ms / 10 % 10);
+        clockText[14] = (char) ('0' + ms % 10);
+        timerLabel.setText(new String(clockText));
     }
     
     private void updateMoveCount() {
@@ -210,85 +810,282 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
         }
     }
     
+    private void updateCratesPlaced() {
+        if (cratesPlacedLabel != null) {
+            cratesPlacedLabel.setText(String.format("Crates placed: %d/%d%s",
+                    board.getCratesOnGoals(), board.getGoalCount(), deadlocked ? " (deadlocked)" : ""));
+        }
+    }
+    
     private void incrementMoveCount() {
         moveCount++;
         updateMoveCount();
     }
 
     private boolean gameWon = false;
+    private final int[] dirtyTiles = new int[4];
+    private int dirtyCount = 0;
+    private int movingCrate = -1;
 
     /**
-     * Draws all the fields and the player on the canvas.
+     * Redraws both canvases, needed whenever the viewport scrolls, zooms or is resized.
+     */
+    private void drawView() {
+        if (gameWon) {
+            return; // Don't redraw the game if we've won
+        }
+        RenderEvent event = RenderEvent.enabled() ? new RenderEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        drawBackground();
+        drawAll();
+        metrics.fullRedraw.record(System.nanoTime() - start);
+        if (event != null) {
+            event.full = true;
+            event.tiles = (viewport.endCol() - viewport.firstCol()) * (viewport.endRow() - viewport.firstRow());
+            event.tileSize = viewport.getTileSize();
+            event.boardSize = board.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Draws the visible walls, ground and goals onto the background canvas.
+     * These never change after the level is loaded, so this only runs when the
+     * viewport changes and whenever the dead square highlight is toggled.
+     */
+    private void drawBackground() {
+        renderer.drawBackground(backgroundGc, board, menuDeadSquares.isSelected() ? deadlocks : null, viewport);
+    }
+
+    /**
+     * Draws all visible crates and the player on the foreground canvas.
+     * Only needed when the viewport changes, every animation frame that
+     * does not scroll goes through {@link #drawDirty()} instead.
      */
     private void drawAll() {
         if (gameWon) {
             return; // Don't redraw the game if we've won
         }
         
-        // Clear the entire canvas first to remove any previous frame
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        // Clear the entire canvas and draw all crates
+        renderer.drawCrates(gc, board, movingCrate, viewport);
+        dirtyCount = 0;
         
-        // Draw all tiles
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                // Draw ground or goal tile first
-                if (isGoal[r][c]) {
-                    gc.drawImage(crateTargetImg, c * TILE, r * TILE);
+        // Draw player on top of everything
+        drawPlayer();
+    }
+
+    private void drawPlayer() {
+        renderer.drawSprite(gc, player.getSprite(), player.getX() / TILE, player.getY() / TILE, viewport);
+    }
+
+    /**
+     * Draws the player after it moved, either by repainting the dirty tiles or,
+     * if the viewport has to scroll to keep it in view, by redrawing everything.
+     */
+    private void showPlayer() {
+        if (viewport.follow(player.getX() / TILE, player.getY() / TILE)) {
+            drawView();
+        } else if (drawDirty()) {
+            drawPlayer();
+        }
+    }
+
+    /**
+     * Marks a tile to be repainted by the next call to {@link #drawDirty()}.
+     * @param pos The cell index of the tile.
+     */
+    private void markDirty(int pos) {
+        for (int i = 0; i < dirtyCount; i++) {
+            if (dirtyTiles[i] == pos) {
+                return;
+            }
+        }
+        dirtyTiles[dirtyCount++] = pos;
+    }
+
+    /**
+     * Repaints all tiles marked dirty since the last frame.
+     * @return false if nothing may be drawn because the game is won.
+     */
+    private boolean drawDirty() {
+        if (gameWon) {
+            dirtyCount = 0;
+            return false;
+        }
+        RenderEvent event = dirtyCount > 0 && RenderEvent.enabled() ? new RenderEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            renderer.drawTile(gc, board, dirtyTiles[i], movingCrate, viewport);
+        }
+        if (event != null) {
+            event.tiles = dirtyCount;
+            event.tileSize = viewport.getTileSize();
+            event.boardSize = board.size();
+            event.commit();
+        }
+        dirtyCount = 0;
+        return true;
+    }
+
+    /**
+     * Tries to move the player in the given direction.
+     * In turbo mode with enough presses queued the step is shown without animation.
+     * @param dir The direction to move in, one of the {@link Board} direction constants.
+     */
+    private void tryMove(int dir) {
+        if (phase != IDLE) return;
+
+        int from = board.getPlayer();
+        boolean skip = menuTurbo.isSelected() && inputCount >= TURBO_SKIP;
+        long allocStart = metrics.allocatedBytes();
+        MoveEvent event = MoveEvent.enabled() ? new MoveEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        int result = board.move(dir);
+        if (event != null && result != Board.BLOCKED) {
+            // Committed by endMove() once the step is on screen
+            event.step = Board.toLurd(dir, result == Board.PUSHED);
+            event.push = result == Board.PUSHED;
+            event.animated = !skip;
+            event.moveNumber = moveCount + 1;
+            event.from = from;
+            event.to = board.getPlayer();
+            event.boardSize = board.size();
+            moveEvent = event;
+        }
+        switch (result) {
+            case Board.WALKED -> {
+                beginMove(allocStart);
+                journal.record(dir, false);
+                incrementMoveCount();
+                if (skip) {
+                    markDirty(from);
+                    markDirty(board.getPlayer());
+                    showJump(dir);
+                    endMove();
                 } else {
-                    grid[r][c].draw(gc, c * TILE, r * TILE);
+                    player.setDirection(playerSprite(dir));
+                    startPlayerStep(dir, System.nanoTime());
+                }
+            }
+            case Board.PUSHED -> {
+                beginMove(allocStart);
+                journal.record(dir, true);
+                int target = board.neighbour(board.getPlayer(), dir);
+                // Once a crate is stuck the level cannot be solved any more, tell the player
+                if (deadlocks != null && !deadlocked) {
+                    deadlocked = deadlocks.isDead(target) || deadlocks.isFreezeDeadlock(board, target);
                 }
-                
-                // Draw crates if present
-                if (grid[r][c] instanceof GreenCrate) {
-                    gc.drawImage(crateOnTargetImg, c * TILE, r * TILE);
-                } else if (grid[r][c] instanceof Crate) {
-                    grid[r][c].draw(gc, c * TILE, r * TILE);
+                updateCratesPlaced();
+                if (skip) {
+                    incrementMoveCount();
+                    markDirty(from);
+                    markDirty(board.getPlayer());
+                    markDirty(target);
+                    showJump(dir);
+                    endMove();
+                    if (checkVictory()) {
+                        showVictoryMessage();
+                    }
+                } else {
+                    player.setDirection(playerSprite(dir));
+                    startCrateStep(dir, board.getPlayer(), target);
                 }
             }
+            default -> { }
         }
-        
-        // Draw player on top of everything
-        player.draw(gc);
     }
 
     /**
-     * Tries to move the player in the given direction.
-     * @param dRow The row to move the player in.
-     * @param dCol The column to move the player in.
-     * @param dirImage The image to set the player's direction to.
-     */
-    private void tryMove(int dRow, int dCol, Image dirImage) {
-        if (isAnimating) return;
-
-        int nr = player.getRow() + dRow;
-        int nc = player.getCol() + dCol;
-        Field targetField = grid[nr][nc];
-
-        if (targetField instanceof Ground) {
-            player.setDirection(dirImage);
-            incrementMoveCount();
-            animateMove(dRow, dCol);
-        } else if (targetField instanceof Crate || targetField instanceof GreenCrate) {
-            // Check if we can move the crate
-            int crateNr = nr + dRow;
-            int crateNc = nc + dCol;
-            if (crateNr >= 0 && crateNr < ROWS && crateNc >= 0 && crateNc < COLS) {
-                Field behindCrate = grid[crateNr][crateNc];
-                if (behindCrate instanceof Ground || behindCrate instanceof Goal) {
-                    player.setDirection(dirImage);
-                    animateCrateMove(dRow, dCol, nr, nc, crateNr, crateNc);
-                }
+     * Takes back the last step without animation. Only the tiles involved are repainted.
+     */
+    private void undo() {
+        cancelPlan();
+        if (phase != IDLE || gameWon) return;
+        inputCount = 0; // Queued presses were meant for the position being taken back
+        int from = board.getPlayer();
+        int step = journal.undo(board);
+        if (step < 0) return;
+        int dir = MoveJournal.direction(step);
+        markDirty(from);
+        markDirty(board.getPlayer());
+        if (MoveJournal.isPush(step)) {
+            markDirty(board.neighbour(from, dir));
+            deadlocked = isDeadlocked();
+            updateCratesPlaced();
+        }
+        moveCount--;
+        updateMoveCount();
+        showJump(dir);
+    }
+
+    /**
+     * Plays the last undone step again without animation.
+     */
+    private void redo() {
+        cancelPlan();
+        if (phase != IDLE || gameWon) return;
+        inputCount = 0;
+        int from = board.getPlayer();
+        int step = journal.redo(board);
+        if (step < 0) return;
+        int dir = MoveJournal.direction(step);
+        markDirty(from);
+        markDirty(board.getPlayer());
+        if (MoveJournal.isPush(step)) {
+            int crate = board.neighbour(board.getPlayer(), dir);
+            markDirty(crate);
+            if (deadlocks != null && !deadlocked) {
+                deadlocked = deadlocks.isDead(crate) || deadlocks.isFreezeDeadlock(board, crate);
             }
-        } else if (targetField instanceof Goal) {
-            // Check if all crates are on goals
-            if (checkVictory()) {
-                showVictoryMessage();
-            } else {
-                player.setDirection(dirImage);
-                incrementMoveCount();
-                animateMove(dRow, dCol);
+            updateCratesPlaced();
+        }
+        incrementMoveCount();
+        showJump(dir);
+        if (checkVictory()) {
+            showVictoryMessage();
+        }
+    }
+
+    /**
+     * Moves the player sprite to the board's player cell and repaints the dirty tiles.
+     */
+    private void showJump(int dir) {
+        player.setDirection(playerSprite(dir));
+        player.setPosition(board.getPlayerRow(), board.getPlayerCol());
+        showPlayer();
+        latencyDrawn = true;
+    }
+
+    private static Sprite playerSprite(int dir) {
+        return switch (dir) {
+            case Board.UP -> Sprite.PLAYER_UP;
+            case Board.DOWN -> Sprite.PLAYER_DOWN;
+            case Board.LEFT -> Sprite.PLAYER_LEFT;
+            default -> Sprite.PLAYER_RIGHT;
+        };
+    }
+
+    /**
+     * @return true if any crate stands on a dead square or is frozen off goal.
+     */
+    private boolean isDeadlocked() {
+        if (deadlocks == null) {
+            return false;
+        }
+        for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+            if (deadlocks.isDead(pos) || deadlocks.isFreezeDeadlock(board, pos)) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -297,25 +1094,34 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
      * @return true if the player has won, false otherwise.
      */
     private boolean checkVictory() {
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                if (isGoal[r][c] && !(grid[r][c] instanceof GreenCrate)) {
-                    return false;
-                }
-            }
+        VictoryCheckEvent event = VictoryCheckEvent.enabled() ? new VictoryCheckEvent() : null;
+        if (event != null) {
+            event.begin();
         }
-        return true;
+        boolean solved = board.isSolved();
+        if (event != null) {
+            event.solved = solved;
+            event.cratesOnGoals = board.getCratesOnGoals();
+            event.goals = board.getGoalCount();
+            event.commit();
+        }
+        return solved;
     }
 
     /**
      * Shows the victory message and starts a countdown to return to the main menu.
      */
     private void showVictoryMessage() {
+        endMove(); // The winning push is not animated any further
         gameWon = true;
-        isAnimating = true;
+        stopTimer();
+        phase = VICTORY;
+        phaseStart = System.nanoTime();
+        shownCountdown = -1;
         
-        // Clear the entire canvas
+        // Clear the entire canvas, including the static background
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        backgroundGc.clearRect(0, 0, backgroundCanvas.getWidth(), backgroundCanvas.getHeight());
         
         // Draw victory message
         gc.setFill(javafx.scene.paint.Color.BLACK);
@@ -326,31 +1132,30 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
             (canvas.getWidth() - text.getLayoutBounds().getWidth()) / 3,
             canvas.getHeight() / 2);
         
-        // Draw timer
+        // Font for the countdown drawn by the loop
         gc.setFont(javafx.scene.text.Font.font(24));
-        
-        // Create countdown timer
-        Timeline countdown = new Timeline();
-        int seconds = 10;
-        for (int i = 0; i < seconds; i++) {
-            String timerText = "Returning to menu in " + (seconds - i) + " seconds...";
-            Text timer = new Text(timerText);
-            KeyFrame kf = new KeyFrame(Duration.seconds(i), e -> {
-                gc.clearRect(0, canvas.getHeight() / 2, canvas.getWidth(), canvas.getHeight() / 2);
-                gc.fillText(timerText, 
-                    (canvas.getWidth() - timer.getLayoutBounds().getWidth()) / 3,
-                    canvas.getHeight() * 3/4);
-            });
-            countdown.getKeyFrames().add(kf);
-        }
-        
-        // Add final frame to return to menu
-        KeyFrame finalFrame = new KeyFrame(Duration.seconds(seconds), e -> {
+        updateCountdown(phaseStart);
+    }
+
+    /**
+     * Counts down to the return to the main menu, redrawn once per second.
+     */
+    private void updateCountdown(long now) {
+        int remaining = VICTORY_SECONDS - (int) (Math.max(0, now - phaseStart) / 1_000_000_000L);
+        if (remaining <= 0) {
             returnToMainMenu();
-        });
-        countdown.getKeyFrames().add(finalFrame);
-        
-        countdown.play();
+            return;
+        }
+        if (remaining == shownCountdown) {
+            return;
+        }
+        shownCountdown = remaining;
+        String timerText = "Returning to menu in " + remaining + " seconds...";
+        Text timer = new Text(timerText);
+        gc.clearRect(0, canvas.getHeight() / 2, canvas.getWidth(), canvas.getHeight() / 2);
+        gc.fillText(timerText,
+            (canvas.getWidth() - timer.getLayoutBounds().getWidth()) / 3,
+            canvas.getHeight() * 3/4);
     }
 
     /**
@@ -358,6 +1163,9 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
      * Will probably be moved to its own controller in the future.
      */
     private void returnToMainMenu() {
+        loop.stop();
+        cancelPlan();
+        phase = IDLE;
         try {
             Parent root = FXMLLoader.load(Objects.requireNonNull(getClass()
                     .getResource("startmenu.fxml")));
@@ -370,148 +1178,120 @@ private Image crateTargetImg = new Image(Objects.requireNonNull(getClass().getRe
     }
 
     /**
-     * Animates the crate's move.
-     * @param dRow The row to move the crate in.
-     * @param dCol The column to move the crate in.
-     * @param crateRow The row of the crate.
-     * @param crateCol The column of the crate.
-     * @param targetRow The row to move the crate to.
-     * @param targetCol The column to move the crate to.
+     * Starts the crate animation of a push; the player follows once it is done.
+     * The board has already been updated by the move.
+     * @param dir The direction of the push.
+     * @param from The cell the crate was pushed from.
+     * @param to The cell the crate was pushed to.
      */
-    private void animateCrateMove(int dRow, int dCol, int crateRow, int crateCol, int targetRow, int targetCol) {
-        isAnimating = true;
+    private void startCrateStep(int dir, int from, int to) {
         incrementMoveCount();
+        animFrom = from;
+        animTo = to;
+        fromX = from % COLS;
+        fromY = from / COLS;
+        toX = to % COLS;
+        toY = to / COLS;
+        movingCrate = to;
+        movingCrateSprite = renderer.crateSprite(board.isGoal(to));
+        pendingDir = dir;
+        phase = CRATE;
+        phaseStart = System.nanoTime();
+        phaseDuration = duration(CRATE_NANOS);
+    }
 
-        // Update the grid immediately
-        boolean targetIsGoal = isGoal[targetRow][targetCol];
-        boolean oldIsGoal = isGoal[crateRow][crateCol];
-        
-        // Remove crate from old position
-        if (oldIsGoal) {
-            grid[crateRow][crateCol] = new Goal();
-        } else {
-            grid[crateRow][crateCol] = new Ground();
+    /**
+     * Walks the player to a clicked cell along a shortest path.
+     * @param row The row of the clicked cell.
+     * @param col The column of the clicked cell.
+     */
+    private void walkTo(int row, int col) {
+        if (board == null || gameWon) {
+            return;
         }
-        
-        // Add crate to new position
-        if (targetIsGoal) {
-            grid[targetRow][targetCol] = new GreenCrate();
-        } else {
-            grid[targetRow][targetCol] = new Crate();
+        cancelPlan();
+        if (phase != IDLE || inputCount > 0 || row < 0 || row >= ROWS || col < 0 || col >= COLS) {
+            return;
         }
-        
-        // Animate the movement
-        final int steps = 8;
-        final double stepDurationMs = 50; // Faster than player movement for better feel
-        
-        // Calculate start and end positions in pixels
-        final double startX = crateCol * TILE;
-        final double startY = crateRow * TILE;
-        final double endX = targetCol * TILE;
-        final double endY = targetRow * TILE;
-        
-        // Create a temporary crate for animation
-        Field animatingCrate = targetIsGoal ? new GreenCrate() : new Crate();
-        
-        Timeline timeline = new Timeline();
-
-        for (int i = 1; i <= steps; i++) {
-            final int step = i;
-            KeyFrame kf = new KeyFrame(Duration.millis(step * stepDurationMs), e -> {
-                // Calculate smooth movement using easing function
-                double progress = (double)step / steps;
-                double easedProgress = progress < 0.5 ? 2 * progress * progress : 1 - Math.pow(-2 * progress + 2, 2) / 2;
-                
-                double newX = startX + (endX - startX) * easedProgress;
-                double newY = startY + (endY - startY) * easedProgress;
-                
-                // Draw everything
-                drawAll();
-                
-                // Draw the animating crate at the current position (cast to int for drawing)
-                animatingCrate.draw(gc, (int)newX, (int)newY);
-                
-                if (step == steps) {
-                    // Final position - redraw to ensure everything is clean
-                    drawAll();
-                    // Now animate the player movement
-                    animateMove(dRow, dCol);
-                    // Check for victory condition
-                    if (checkVictory()) {
-                        showVictoryMessage();
-                    }
-                }
-            });
-            timeline.getKeyFrames().add(kf);
+        int[] steps = paths.path(board.index(row, col));
+        if (steps == null || steps.length == 0) {
+            return;
         }
-        
-        timeline.play();
+        startWalk(steps);
     }
 
     /**
-     * Animates the player's move.
-     * @param dRow The row to move the player in.
-     * @param dCol The column to move the player in.
+     * Plays steps without pushes as one continuous animation. The board and the
+     * journal take all steps at once.
+     * @param steps The directions of the steps.
      */
-    private void animateMove(int dRow, int dCol) {
-        isAnimating = true;
-        
-        // Update player's grid position immediately
-        player.setPosition(player.getRow() + dRow, player.getCol() + dCol);
-        
-        // Calculate animation parameters
-        final int steps = 8;
-        final double stepDurationMs = 25; // 8 * 25ms = 200ms total
-        final double startX = player.getCol() * TILE - dCol * TILE; // Start from previous position
-        final double startY = player.getRow() * TILE - dRow * TILE; // Start from previous position
-        final double targetX = player.getCol() * TILE;
-        final double targetY = player.getRow() * TILE;
-
-        Timeline timeline = new Timeline();
-
-        for (int i = 1; i <= steps; i++) {
-            final int step = i;
-            KeyFrame kf = new KeyFrame(Duration.millis(step * stepDurationMs), e -> {
-                // Calculate smooth movement using easing function (quadratic)
-                double progress = (double)step / steps;
-                double easedProgress = progress < 0.5 ? 2 * progress * progress : 1 - Math.pow(-2 * progress + 2, 2) / 2;
-                
-                double newX = startX + (targetX - startX) * easedProgress;
-                double newY = startY + (targetY - startY) * easedProgress;
-                
-                player.setPixelPosition(newX, newY);
-                drawAll();
-
-                if (step == steps) {
-                    // Ensure final position is exact
-                    player.setPixelPosition(targetX, targetY);
-                    drawAll();
-                    isAnimating = false;
-                }
-            });
-            timeline.getKeyFrames().add(kf);
+    private void startWalk(int[] steps) {
+        beginMove(metrics.allocatedBytes());
+        walkSteps = steps;
+        walkCells = new int[steps.length + 1];
+        walkCells[0] = board.getPlayer();
+        for (int i = 0; i < steps.length; i++) {
+            board.move(steps[i]);
+            journal.record(steps[i], false);
+            walkCells[i + 1] = board.getPlayer();
         }
-        
-        // Set what happens when the animation is finished
-        timeline.setOnFinished(e -> {
-            // Start cooldown period
-            isAnimating = true;
-            
-            // Clear any existing cooldown
-            if (cooldownTimeline != null) {
-                cooldownTimeline.stop();
-            }
-            
-            // Create new cooldown
-            cooldownTimeline = new Timeline(
-                new KeyFrame(Duration.millis(100), event -> {
-                    isAnimating = false;
-                })
-            );
-            cooldownTimeline.setCycleCount(1);
-            cooldownTimeline.play();
-        });
-        
-        timeline.play();
+        moveCount += steps.length;
+        updateMoveCount();
+        walkSegment = -1;
+        walkStepNanos = Math.min(WALK_STEP_NANOS, WALK_MAX_NANOS / steps.length);
+        phase = WALK;
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Positions the player on the walk at the given time and repaints the tiles it
+     * left and entered since the last frame.
+     */
+    private void stepWalk(long now) {
+        double s = Math.max(0, now - phaseStart) / (double) walkStepNanos;
+        int last = walkSteps.length;
+        int segment = Math.min((int) s, last);
+        double t = segment == last ? 0 : s - segment;
+        int at = walkCells[segment];
+        int next = walkCells[Math.min(segment + 1, last)];
+        // The player covered at most two tiles in the last frame and covers at most two now
+        double x = player.getX() / TILE;
+        double y = player.getY() / TILE;
+        markDirty(board.index((int) Math.floor(y), (int) Math.floor(x)));
+        markDirty(board.index((int) Math.ceil(y), (int) Math.ceil(x)));
+        if (segment != walkSegment && segment < last) {
+            player.setDirection(playerSprite(walkSteps[segment]));
+            walkSegment = segment;
+        }
+        player.setPosition(at / COLS, at % COLS);
+        player.setPixelPosition(((at % COLS) + (next % COLS - at % COLS) * t) * TILE,
+                ((at / COLS) + (next / COLS - at / COLS) * t) * TILE);
+        markDirty(at);
+        markDirty(next);
+        showPlayer();
+        if (segment == last) {
+            phase = IDLE;
+            endMove();
+        }
+    }
+
+    /**
+     * Starts the player animation from the sprite's cell one step in the given direction.
+     * @param dir The direction of the step.
+     * @param now The start time of the animation.
+     */
+    private void startPlayerStep(int dir, long now) {
+        // Update player's grid position immediately
+        animFrom = board.index(player.getRow(), player.getCol());
+        fromX = player.getCol();
+        fromY = player.getRow();
+        player.setPosition(player.getRow() + Board.dRow(dir), player.getCol() + Board.dCol(dir));
+        animTo = board.index(player.getRow(), player.getCol());
+        toX = player.getCol();
+        toY = player.getRow();
+        player.setPixelPosition(fromX * TILE, fromY * TILE);
+        phase = PLAYER;
+        phaseStart = now;
+        phaseDuration = duration(PLAYER_NANOS);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,339 @@
+package de.vladistic.sokoban;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.DeadlockDetector;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.solver.Solver;
+import de.vladistic.sokoban.solver.SolverResult;
+import de.vladistic.sokoban.utils.LevelCatalog;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless profile of every level of a pack, without starting JavaFX: size, crates,
+ * the floor area the player can reach, simple dead squares, and a push-optimal
+ * solution with its move and push counts and the states the search expanded.
+ * Levels are read through {@link LevelCatalog}, so text and binary packs both work.
+ * <p>
+ * Levels are profiled concurrently, each within its own budgets: the search is
+ * interrupted when its time is up, and stops when it has allocated its memory budget,
+ * the transposition table included. Fewer levels run at once if their budgets would
+ * not fit into the maximum heap together. The report lists the levels in pack
+ * order with a difficulty rank, easiest first: solved levels by expanded states,
+ * then pushes, followed by the levels that ran out of budget. Their status is
+ * CANCELLED when the time ran out and LIMIT_REACHED when the memory budget did; the
+ * memory is checked in batches of a few thousand states, so a search may use a few MB more.
+ * <pre>
+ * java de.vladistic.sokoban.PackAnalytics [-time &lt;seconds&gt;] [-memory &lt;MB&gt;] [-threads &lt;n&gt;]
+ *      &lt;pack&gt; &lt;report.csv|report.json&gt;
+ * </pre>
+ */
+public class PackAnalytics {
+    public static final int DEFAULT_SECONDS = 30;
+    public static final int DEFAULT_MEGABYTES = 256;
+    private static final int MAX_TABLE_BITS = Solver.DEFAULT_TABLE_BITS;
+
+    /**
+     * Profile of one level.
+     */
+    public static final class Profile {
+        private final int number;
+        private final Level level;
+        private final int goals;
+        private final int floor;
+        private final int deadSquares;
+        private final SolverResult result;
+        private final long allocatedBytes;
+        private int rank;
+
+        private Profile(int number, Level level, int goals, int floor, int deadSquares, SolverResult result,
+                        long allocatedBytes) {
+            this.number = number;
+            this.level = level;
+            this.goals = goals;
+            this.floor = floor;
+            this.deadSquares = deadSquares;
+            this.result = result;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /** @return The 1-based position of the level in the pack. */
+        public int getNumber() { return number; }
+        public Level getLevel() { return level; }
+        public int getGoals() { return goals; }
+        /** @return The floor cells the player can reach, ignoring crates. */
+        public int getFloor() { return floor; }
+        /** @return The simple dead squares, -1 if crates and goals differ in number. */
+        public int getDeadSquares() { return deadSquares; }
+        public SolverResult getResult() { return result; }
+        /** @return The bytes the profiling thread allocated for the level, -1 if the JVM cannot tell. */
+        public long getAllocatedBytes() { return allocatedBytes; }
+        /** @return The difficulty rank within the pack, 1 for the easiest level. */
+        public int getRank() { return rank; }
+    }
+
+    private final long timeBudgetMillis;
+    private final long memoryBudgetBytes;
+    private final int threads;
+
+    /**
+     * The threads are reduced until their memory budgets fit into the maximum heap together,
+     * and with a single thread the memory budget is reduced to the maximum heap.
+     * @param timeBudgetMillis The time a single level may take.
+     * @param memoryBudgetBytes The memory a single level may allocate.
+     * @param threads The number of levels profiled at once.
+     */
+    public PackAnalytics(long timeBudgetMillis, long memoryBudgetBytes, int threads) {
+        if (timeBudgetMillis <= 0 || memoryBudgetBytes < 1 << 20 || threads < 1) {
+            throw new IllegalArgumentException("Budgets must be positive and allow at least 1 MB");
+        }
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.threads = (int) Math.max(1, Math.min(threads, maxHeap / memoryBudgetBytes));
+        this.memoryBudgetBytes = Math.min(memoryBudgetBytes, maxHeap / this.threads);
+    }
+
+    /** @return The number of levels profiled at once, after fitting the budgets into the heap. */
+    public int getThreads() { return threads; }
+    /** @return The memory budget of a level, after fitting it into the heap. */
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+
+    /**
+     * Profiles every level of a pack and ranks them by difficulty.
+     * @param levels The levels in pack order.
+     * @return The profiles in pack order.
+     * @throws CancellationException If the calling thread is interrupted.
+     */
+    public List<Profile> profile(List<Level> levels) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "analytics-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Profile>> futures = new ArrayList<>();
+            for (int i = 0; i < levels.size(); i++) {
+                int number = i + 1;
+                Level level = levels.get(i);
+                futures.add(pool.submit(() -> profile(number, level, timer)));
+            }
+            List<Profile> profiles = new ArrayList<>();
+            for (Future<Profile> future : futures) {
+                profiles.add(future.get());
+            }
+            rank(profiles);
+            return profiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Profiling interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Profiling failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Profiles one level on the calling thread, which is interrupted once the time budget is used up.
+     */
+    private Profile profile(int number, Level level, ScheduledExecutorService timer) {
+        Board board = level.toBoard();
+        DeadlockDetector deadlocks = level.getCrateCount() == board.getGoalCount() ? new DeadlockDetector(board) : null;
+
+        Solver solver = new Solver(Solver.Algorithm.A_STAR);
+        // A quarter of the budget for the table, the rest for the open states
+        int tableBits = 63 - Long.numberOfLeadingZeros(Math.max(1, memoryBudgetBytes / 4 / 16));
+        solver.setTableBits(Math.min(MAX_TABLE_BITS, tableBits));
+        solver.setNodeLimit(Long.MAX_VALUE);
+        solver.setMemoryLimit(memoryBudgetBytes);
+
+        Thread worker = Thread.currentThread();
+        Object lock = new Object();
+        boolean[] done = new boolean[1];
+        ScheduledFuture<?> alarm = timer.schedule(() -> {
+            synchronized (lock) {
+                if (!done[0]) {
+                    worker.interrupt();
+                }
+            }
+        }, timeBudgetMillis, TimeUnit.MILLISECONDS);
+        long allocStart = GameMetrics.get().allocatedBytes();
+        SolverResult result;
+        try {
+            result = solver.solve(board);
+        } finally {
+            synchronized (lock) {
+                done[0] = true;
+            }
+            alarm.cancel(false);
+            Thread.interrupted(); // An alarm that fired late must not cancel the next level
+        }
+        long allocEnd = GameMetrics.get().allocatedBytes();
+        return new Profile(number, level, board.getGoalCount(), floorArea(board), deadlocks != null ? deadlocks.getDeadSquareCount() : -1,
+                result, allocStart >= 0 ? allocEnd - allocStart : -1);
+    }
+
+    /**
+     * @return The cells the player can reach if crates are ignored.
+     */
+    private static int floorArea(Board board) {
+        boolean[] seen = new boolean[board.size()];
+        int[] queue = new int[board.size()];
+        int tail = 0;
+        queue[tail++] = board.getPlayer();
+        seen[board.getPlayer()] = true;
+        for (int head = 0; head < tail; head++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(queue[head], dir);
+                if (n >= 0 && !seen[n] && !board.isWall(n)) {
+                    seen[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private static void rank(List<Profile> profiles) {
+        List<Profile> order = new ArrayList<>(profiles);
+        order.sort(Comparator.<Profile>comparingInt(p -> p.result.isSolved() ? 0 : 1)
+                .thenComparingLong(p -> p.result.getNodesExpanded())
+                .thenComparingInt(p -> p.result.getPushCount())
+                .thenComparingInt(p -> p.number));
+        for (int i = 0; i < order.size(); i++) {
+            order.get(i).rank = i + 1;
+        }
+    }
+
+    private static final String[] COLUMNS = {"level", "rank", "cols", "rows", "crates", "goals", "floor",
+            "dead_squares", "status", "moves", "pushes", "nodes", "millis", "allocated_kb"};
+
+    private static Object[] values(Profile p) {
+        SolverResult r = p.result;
+        return new Object[]{p.number, p.rank, p.level.getCols(), p.level.getRows(), p.level.getCrateCount(),
+                p.goals, p.floor, p.deadSquares, r.getStatus(), r.getMoveCount(),
+                r.isSolved() ? r.getPushCount() : -1, r.getNodesExpanded(), r.getElapsedNanos() / 1_000_000,
+                p.allocatedBytes >= 0 ? p.allocatedBytes >> 10 : -1};
+    }
+
+    /**
+     * Writes the profiles as CSV with a header line.
+     * @param profiles The profiles.
+     * @param out The writer, not closed.
+     */
+    public static void writeCsv(List<Profile> profiles, Writer out) {
+        PrintWriter print = new PrintWriter(out);
+        print.println(String.join(",", COLUMNS));
+        for (Profile p : profiles) {
+            Object[] values = values(p);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    print.print(',');
+                }
+                print.print(values[i]);
+            }
+            print.println();
+        }
+        print.flush();
+    }
+
+    /**
+     * Writes the profiles as a JSON array of objects, one per level.
+     * @param profiles The profiles.
+     * @param out The writer, not closed.
+     */
+    public static void writeJson(List<Profile> profiles, Writer out) {
+        PrintWriter print = new PrintWriter(out);
+        print.println("[");
+        for (int p = 0; p < profiles.size(); p++) {
+            Object[] values = values(profiles.get(p));
+            print.print("  {");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    print.print(", ");
+                }
+                // Only the status is not a number
+                Object value = values[i];
+                print.print('"' + COLUMNS[i] + "\": " + (value instanceof Number ? value : "\"" + value + '"'));
+            }
+            print.println(p < profiles.size() - 1 ? "}," : "}");
+        }
+        print.println("]");
+        print.flush();
+    }
+
+    /**
+     * @param args Optional budgets and thread count, then the pack and the report file.
+     *             The report is JSON if its name ends in ".json", CSV otherwise.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        long seconds = DEFAULT_SECONDS;
+        long megabytes = DEFAULT_MEGABYTES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+        try {
+            while (first + 1 < args.length && args[first].startsWith("-")) {
+                switch (args[first]) {
+                    case "-time" -> seconds = Long.parseLong(args[first + 1]);
+                    case "-memory" -> megabytes = Long.parseLong(args[first + 1]);
+                    case "-threads" -> threads = Integer.parseInt(args[first + 1]);
+                    default -> throw new IllegalArgumentException(args[first]);
+                }
+                first += 2;
+            }
+        } catch (IllegalArgumentException e) {
+            first = -1;
+        }
+        if (first < 0 || args.length - first != 2) {
+            System.err.println("Usage: PackAnalytics [-time <seconds>] [-memory <MB>] [-threads <n>]"
+                    + " <pack> <report.csv|report.json>");
+            System.exit(2);
+        }
+
+        LevelCatalog catalog = LevelCatalog.open(Path.of(args[first]).toUri().toURL(), null);
+        List<Level> levels = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            levels.add(catalog.get(i));
+        }
+        PackAnalytics analytics = new PackAnalytics(seconds * 1000, megabytes << 20, threads);
+        if (analytics.getThreads() < threads || analytics.getMemoryBudgetBytes() < megabytes << 20) {
+            System.err.printf("Budgets reduced to %d MB on %d threads to fit the heap of %d MB%n",
+                    analytics.getMemoryBudgetBytes() >> 20, analytics.getThreads(),
+                    Runtime.getRuntime().maxMemory() >> 20);
+        }
+        long start = System.nanoTime();
+        List<Profile> profiles = analytics.profile(levels);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Path report = Path.of(args[first + 1]);
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            if (report.getFileName().toString().toLowerCase().endsWith(".json")) {
+                writeJson(profiles, out);
+            } else {
+                writeCsv(profiles, out);
+            }
+        }
+        long solved = profiles.stream().filter(p -> p.result.isSolved()).count();
+        System.out.printf("%d levels, %d solved, %d out of budget or unsolvable in %.1fs on %d threads%n",
+                profiles.size(), solved, profiles.size() - solved, elapsed, analytics.getThreads());
+    }
+}
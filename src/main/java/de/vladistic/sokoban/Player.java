@@ -1,14 +1,11 @@
 package de.vladistic.sokoban;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
+public class Player {
+    private static final int TILE = BoardRenderer.TILE;
 
-public class Player extends Field {
     private int row, col; // Tile-Position
     private double x, y;  // Pixel-Position für Animation
-
-    @SuppressWarnings("exports")
-    public final Image left, right, up, down;
+    private Sprite sprite = Sprite.PLAYER_DOWN; // Initialrichtung nach unten
 
     /**
      * Erstellt einen neuen Spieler.
@@ -17,25 +14,25 @@ public class Player extends Field {
      */
     
     public Player(int startRow, int startCol) {
-        super("projekt/player_down.png"); // Initialrichtung nach unten
         this.row = startRow;
         this.col = startCol;
         this.x = col * TILE;
         this.y = row * TILE;
-        left  = new Image(getClass().getResourceAsStream("projekt/player_left.png"));
-        right = new Image(getClass().getResourceAsStream("projekt/player_right.png"));
-        up    = new Image(getClass().getResourceAsStream("projekt/player_up.png"));
-        down  = new Image(getClass().getResourceAsStream("projekt/player_down.png"));
     }
 
     public int getRow() { return row; }
     public int getCol() { return col; }
-
-    /** Setzt die Blickrichtung (Wechsel des Bildes).
-     * @param dirImage Das Bild, das die Blickrichtung repräsentiert.
+    /** @return Die Pixelposition bei Originalgröße der Tiles. */
+    public double getX() { return x; }
+    public double getY() { return y; }
+    /** @return Das Sprite der aktuellen Blickrichtung. */
+    public Sprite getSprite() { return sprite; }
+
+    /** Setzt die Blickrichtung über das Sprite, das auch skaliert gezeichnet werden kann.
+     * @param sprite Eines der Sprites {@link Sprite#PLAYER_UP} bis {@link Sprite#PLAYER_RIGHT}.
      */
-    public void setDirection(Image dirImage) {
-        this.image = dirImage;
+    public void setDirection(Sprite sprite) {
+        this.sprite = sprite;
     }
 
     /**
@@ -59,11 +56,4 @@ public class Player extends Field {
         this.x = x;
         this.y = y;
     }
-
-    /**  Zeichnet den Spieler an seiner aktuellen Pixelposition.
-     * @param gc Das GraphicsContext, auf dem der Spieler gezeichnet werden soll.
-     */
-    public void draw(GraphicsContext gc) {
-        gc.drawImage(image, x, y);
-    }
 }
@@ -0,0 +1,198 @@
+package de.vladistic.sokoban;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.utils.LevelCatalog;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Headless command-line check of player solutions, without starting JavaFX.
+ * Every solution is replayed on a {@link Board}, the same rules the game applies
+ * in {@link LevelController}, and is valid if all steps are legal and the level
+ * is solved afterwards. Solutions are independent, so they are verified on all
+ * cores in parallel and reported in input order.
+ * <p>
+ * The pack may be a text pack or a binary pack written by
+ * {@link de.vladistic.sokoban.utils.BinaryLevelFormat}.
+ * The solutions file holds one solution per line: the 1-based level number in
+ * the pack, whitespace and the steps in LURD notation, optionally run-length encoded
+ * ("3r" for "rrr"). Blank lines and lines starting with '#' are skipped.
+ * <pre>
+ * java de.vladistic.sokoban.SolutionVerifier [-q] &lt;pack&gt; &lt;solutions&gt;
+ * </pre>
+ */
+public class SolutionVerifier {
+
+    /**
+     * Outcome of replaying one solution.
+     */
+    public static final class Result {
+        private final boolean valid;
+        private final int moves;
+        private final int pushes;
+        private final String error;
+
+        private Result(boolean valid, int moves, int pushes, String error) {
+            this.valid = valid;
+            this.moves = moves;
+            this.pushes = pushes;
+            this.error = error;
+        }
+
+        public boolean isValid() { return valid; }
+        /** @return The number of steps replayed, up to the failing one if invalid. */
+        public int getMoves() { return moves; }
+        /** @return The number of pushes replayed. */
+        public int getPushes() { return pushes; }
+        /** @return Why the solution is invalid, null if it is valid. */
+        public String getError() { return error; }
+
+        @Override
+        public String toString() {
+            return valid ? String.format("valid, %d moves, %d pushes", moves, pushes)
+                    : String.format("invalid after %d moves: %s", moves, error);
+        }
+    }
+
+    /**
+     * Replays a solution from the starting position of a level.
+     * @param level The level.
+     * @param lurd The steps in LURD notation, optionally run-length encoded. Whitespace is ignored.
+     *             A count must be followed by a step and cannot exceed the number of cells.
+     * @return Whether the solution is valid, with its move and push counts.
+     */
+    public static Result verify(Level level, CharSequence lurd) {
+        Board board = level.toBoard();
+        int moves = 0;
+        int pushes = 0;
+        int repeat = 0;
+        for (int i = 0; i < lurd.length(); i++) {
+            char c = lurd.charAt(i);
+            if (c >= '0' && c <= '9') {
+                repeat = repeat * 10 + (c - '0');
+                if (repeat > board.size()) {
+                    // No straight run is longer than the board, and the check keeps the count from overflowing
+                    return new Result(false, moves, pushes, "count exceeds the " + board.size() + " cells of the board");
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int dir = Board.fromLurd(c);
+            if (dir < 0) {
+                return new Result(false, moves, pushes, "'" + c + "' is not a LURD step");
+            }
+            boolean push = Character.isUpperCase(c);
+            for (int n = Math.max(repeat, 1); n > 0; n--) {
+                int result = board.move(dir);
+                if (result == Board.BLOCKED) {
+                    return new Result(false, moves, pushes, "'" + c + "' is blocked");
+                }
+                if ((result == Board.PUSHED) != push) {
+                    return new Result(false, moves, pushes,
+                            push ? "'" + c + "' does not push a crate" : "'" + c + "' pushes a crate");
+                }
+                moves++;
+                if (push) {
+                    pushes++;
+                }
+            }
+            repeat = 0;
+        }
+        if (repeat != 0) {
+            return new Result(false, moves, pushes, "count " + repeat + " is not followed by a step");
+        }
+        if (!board.isSolved()) {
+            return new Result(false, moves, pushes, "level not solved");
+        }
+        return new Result(true, moves, pushes, null);
+    }
+
+    /**
+     * @param args Optionally "-q" to report only invalid solutions, then the level pack
+     *             and the solutions file.
+     * @throws IOException If a file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean quiet = args.length > 0 && args[0].equals("-q");
+        int first = quiet ? 1 : 0;
+        if (args.length - first != 2) {
+            System.err.println("Usage: SolutionVerifier [-q] <pack> <solutions>");
+            System.exit(2);
+        }
+
+        List<Level> levels = new ArrayList<>();
+        LevelCatalog catalog = LevelCatalog.open(Path.of(args[first]).toUri().toURL(), null);
+        for (int i = 0; i < catalog.size(); i++) {
+            levels.add(catalog.get(i));
+        }
+
+        List<String> lines = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(args[first + 1]), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 0;
+            while ((line = in.readLine()) != null) {
+                number++;
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    lines.add(line);
+                    lineNumbers.add(number);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        Result[] results = new Result[lines.size()];
+        int[] levelNumbers = new int[lines.size()];
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            String line = lines.get(i);
+            int split = 0;
+            while (split < line.length() && Character.isDigit(line.charAt(split))) {
+                split++;
+            }
+            int number = split > 0 && split <= 9 ? Integer.parseInt(line.substring(0, split)) : 0;
+            levelNumbers[i] = number;
+            if (split == line.length() || !Character.isWhitespace(line.charAt(split))) {
+                // "13r" could be level 1 with "3r" as well as level 13 with "r"
+                results[i] = new Result(false, 0, 0,
+                        "malformed line, expected the level number, whitespace and the steps");
+            } else if (number < 1 || number > levels.size()) {
+                results[i] = new Result(false, 0, 0, "no level " + line.substring(0, split));
+            } else {
+                results[i] = verify(levels.get(number - 1), line.substring(split));
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        PrintStream out = System.out;
+        int valid = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i].isValid()) {
+                valid++;
+            }
+            if (!quiet || !results[i].isValid()) {
+                out.println("Line " + lineNumbers.get(i) + ", level " + levelNumbers[i] + ": " + results[i]);
+            }
+        }
+        double seconds = elapsed / 1e9;
+        out.printf("%d solutions, %d valid, %d invalid in %.3fs (%.0f solutions/s on %d cores)%n",
+                results.length, valid, results.length - valid, seconds,
+                seconds > 0 ? results.length / seconds : 0.0, Runtime.getRuntime().availableProcessors());
+        if (valid < results.length) {
+            System.exit(1);
+        }
+    }
+}
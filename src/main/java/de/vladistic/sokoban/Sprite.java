@@ -0,0 +1,63 @@
+package de.vladistic.sokoban;
+
+import javafx.scene.image.Image;
+
+import java.util.Objects;
+
+/**
+ * Registry of all tile and player images. Every image is decoded once per process
+ * on first use and then shared by the renderer and the controllers.
+ */
+public enum Sprite {
+    WALL("projekt/wall.png"),
+    GROUND("projekt/ground.png"),
+    GOAL("projekt/goal.png"),
+    CRATE("projekt/crate.png"),
+    CRATE_TARGET("projekt/crate_target.png"),
+    CRATE_ON_TARGET("projekt/crate_on_target.png"),
+    PLAYER_UP("projekt/player_up.png"),
+    PLAYER_DOWN("projekt/player_down.png"),
+    PLAYER_LEFT("projekt/player_left.png"),
+    PLAYER_RIGHT("projekt/player_right.png");
+
+    private final String resource;
+    private volatile Image image;
+
+    Sprite(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the shared image, decoding it on the first call.
+     * @return The image for this sprite.
+     */
+    @SuppressWarnings("exports")
+    public Image image() {
+        Image result = image;
+        if (result == null) {
+            synchronized (this) {
+                result = image;
+                if (result == null) {
+                    result = new Image(Objects.requireNonNull(Sprite.class.getResourceAsStream(resource)));
+                    image = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decodes the sprite scaled to a square of the given size. Scaling while decoding
+     * is done once, drawing the result costs no more than drawing the original.
+     * Unlike {@link #image()} every call decodes a new image, callers keep the ones they need.
+     * @param size The edge length in pixels.
+     * @return The scaled image, the shared image if the size is the original one.
+     */
+    @SuppressWarnings("exports")
+    public Image image(int size) {
+        if (size == BoardRenderer.TILE) {
+            return image();
+        }
+        return new Image(Objects.requireNonNull(Sprite.class.getResourceAsStream(resource)), size, size, false, true);
+    }
+}
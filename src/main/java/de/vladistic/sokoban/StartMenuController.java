@@ -1,6 +1,8 @@
 package de.vladistic.sokoban;
 
-import de.vladistic.sokoban.utils.ParseLevels;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.utils.LevelCatalog;
+import de.vladistic.sokoban.utils.LevelReader;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -9,14 +11,15 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
 
-import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.util.Objects;
 
 public class StartMenuController {
 
     /**
      * Lädt das ReflectionLevel per Reflection und konvertiert es in einen Level-String,
-     * der von setLevelData wie gewohnt verarbeitet werden kann.
+     * der vom LevelReader wie gewohnt verarbeitet werden kann.
      */
     private String loadReflectionLevelString() {
         try {
@@ -62,23 +65,19 @@ public class StartMenuController {
     private int currentLevel = 1;
     private final int minLevel = 1;
     private int maxLevel = 1;
-    private String[] levels;
+    private LevelCatalog catalog;
 
     @FXML
     public void initialize() {
         try {
-            // Load levels from file
-            File levelsFile = new File(getClass().getResource("projekt/levels.txt").getFile());
-            String[] fileLevels = ParseLevels.parseLevels(levelsFile);
-
-            // Load ReflectionLevel via Reflection
-            String reflectionLevelString = loadReflectionLevelString();
-
-            // Combine file levels and reflection level
-            levels = new String[fileLevels.length + 1];
-            System.arraycopy(fileLevels, 0, levels, 0, fileLevels.length);
-            levels[fileLevels.length] = reflectionLevelString;
-            maxLevel = levels.length;
+            // Index the level pack, levels are only parsed when a game starts.
+            // A binary pack converted by BinaryLevelFormat is preferred if present.
+            // The ReflectionLevel is appended as the last level.
+            URL binaryPack = getClass().getResource("projekt/levels.skb");
+            catalog = binaryPack != null ? LevelCatalog.open(binaryPack, null) : LevelCatalog.open(
+                    Objects.requireNonNull(getClass().getResource("projekt/levels.txt")),
+                    getClass().getResource("projekt/levels.txt.idx"));
+            maxLevel = catalog.size() + 1;
 
             updateLevelLabel();
         } catch (Exception e) {
@@ -124,7 +123,9 @@ public class StartMenuController {
             LevelController controller = loader.getController();
             
             // Pass the current level data to the controller
-            controller.setLevelData(levels[currentLevel - 1]);
+            long start = System.nanoTime();
+            controller.setLevel(loadLevel(currentLevel));
+            GameMetrics.get().levelLoad.record(System.nanoTime() - start);
             
             Stage stage = (Stage) btnNewGame.getScene().getWindow();
             Scene scene = new Scene(root, 1280, 768);
@@ -135,6 +136,20 @@ public class StartMenuController {
         }
     }
 
+    /**
+     * Parses the selected level.
+     * @param number The level number, starting at 1.
+     * @return The parsed level.
+     * @throws IOException If the level pack cannot be read.
+     */
+    private Level loadLevel(int number) throws IOException {
+        if (catalog != null && number <= catalog.size()) {
+            return catalog.get(number - 1);
+        }
+        // Load ReflectionLevel via Reflection
+        return LevelReader.parse(loadReflectionLevelString());
+    }
+
     /**
      * Shows the options menu.
      * Added for future use.
@@ -0,0 +1,185 @@
+package de.vladistic.sokoban;
+
+/**
+ * The part of a level shown in the window. The viewport has the size of the
+ * canvases, not of the level, and scrolls over the level at one of a few zoom
+ * steps. Level coordinates are in tiles, screen coordinates in pixels; the
+ * scroll position is kept in whole pixels so tiles never land between pixels.
+ * <p>
+ * When the whole level fits in the window it is centred and does not scroll.
+ */
+public class Viewport {
+    /** Tile sizes of the zoom steps, the original sprite size is the default. */
+    private static final int[] ZOOM_STEPS = {16, 24, 32, 48, 64, 96, 128};
+    private static final int DEFAULT_ZOOM = 4;
+    /** The followed position is kept this fraction of the window away from its edges. */
+    private static final double MARGIN = 0.25;
+
+    private double width;
+    private double height;
+    private int cols;
+    private int rows;
+    private int zoom = DEFAULT_ZOOM;
+    private int tileSize = ZOOM_STEPS[DEFAULT_ZOOM];
+    private long originX; // Screen pixel 0 in level pixels at the current tile size
+    private long originY;
+
+    /**
+     * @param width The width of the window in pixels.
+     * @param height The height of the window in pixels.
+     */
+    public void setSize(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param cols The number of columns of the level.
+     * @param rows The number of rows of the level.
+     */
+    public void setLevelSize(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
+    public int getTileSize() { return tileSize; }
+
+    /**
+     * Zooms in or out by a number of steps, as far as the steps go.
+     * @param steps Positive to zoom in, negative to zoom out.
+     * @return true if the tile size changed.
+     */
+    public boolean zoom(int steps) {
+        return setZoom(Math.max(0, Math.min(ZOOM_STEPS.length - 1, zoom + steps)));
+    }
+
+    /**
+     * Returns to the original sprite size.
+     * @return true if the tile size changed.
+     */
+    public boolean resetZoom() {
+        return setZoom(DEFAULT_ZOOM);
+    }
+
+    private boolean setZoom(int step) {
+        if (step == zoom) {
+            return false;
+        }
+        zoom = step;
+        tileSize = ZOOM_STEPS[step];
+        return true;
+    }
+
+    /**
+     * Scrolls so the given position is in the middle of the window.
+     * @param col The column, fractions for positions between tiles.
+     * @param row The row.
+     */
+    public void centerOn(double col, double row) {
+        originX = clamp(Math.round((col + 0.5) * tileSize - width / 2), cols, width);
+        originY = clamp(Math.round((row + 0.5) * tileSize - height / 2), rows, height);
+    }
+
+    /**
+     * Scrolls only as far as needed to keep the given position out of the margins
+     * of the window, so small moves do not scroll at all.
+     * @param col The column, fractions for positions between tiles.
+     * @param row The row.
+     * @return true if the viewport scrolled and everything has to be redrawn.
+     */
+    public boolean follow(double col, double row) {
+        long x = clamp(follow(originX, col * tileSize, width), cols, width);
+        long y = clamp(follow(originY, row * tileSize, height), rows, height);
+        if (x == originX && y == originY) {
+            return false;
+        }
+        originX = x;
+        originY = y;
+        return true;
+    }
+
+    private long follow(long origin, double pixel, double extent) {
+        double margin = Math.max(0, Math.min(extent * MARGIN, (extent - tileSize) / 2));
+        if (pixel - origin < margin) {
+            return Math.round(pixel - margin);
+        }
+        if (pixel + tileSize - origin > extent - margin) {
+            return Math.round(pixel + tileSize - extent + margin);
+        }
+        return origin;
+    }
+
+    /**
+     * Keeps the level filling the window, or centred if it is smaller than the window.
+     */
+    private long clamp(long origin, int tiles, double extent) {
+        long size = (long) tiles * tileSize;
+        if (size <= extent) {
+            return -Math.round((extent - size) / 2);
+        }
+        return Math.max(0, Math.min(size - (long) extent, origin));
+    }
+
+    /**
+     * @param col A column, fractions for positions between tiles.
+     * @return The screen x coordinate of the left edge of the column.
+     */
+    public double screenX(double col) {
+        return col * tileSize - originX;
+    }
+
+    /**
+     * @param row A row, fractions for positions between tiles.
+     * @return The screen y coordinate of the top edge of the row.
+     */
+    public double screenY(double row) {
+        return row * tileSize - originY;
+    }
+
+    /**
+     * @param x A screen x coordinate.
+     * @return The column under it, outside the level if nothing is drawn there.
+     */
+    public int colAt(double x) {
+        return (int) Math.floorDiv(originX + (long) Math.floor(x), tileSize);
+    }
+
+    /**
+     * @param y A screen y coordinate.
+     * @return The row under it, outside the level if nothing is drawn there.
+     */
+    public int rowAt(double y) {
+        return (int) Math.floorDiv(originY + (long) Math.floor(y), tileSize);
+    }
+
+    /** @return The first column at least partly visible. */
+    public int firstCol() {
+        return (int) Math.max(0, Math.floorDiv(originX, tileSize));
+    }
+
+    /** @return The column after the last one at least partly visible. */
+    public int endCol() {
+        return (int) Math.min(cols, Math.floorDiv(originX + (long) Math.ceil(width) - 1, tileSize) + 1);
+    }
+
+    /** @return The first row at least partly visible. */
+    public int firstRow() {
+        return (int) Math.max(0, Math.floorDiv(originY, tileSize));
+    }
+
+    /** @return The row after the last one at least partly visible. */
+    public int endRow() {
+        return (int) Math.min(rows, Math.floorDiv(originY + (long) Math.ceil(height) - 1, tileSize) + 1);
+    }
+
+    /**
+     * @param col A column.
+     * @param row A row.
+     * @return true if any part of the tile is inside the window.
+     */
+    public boolean isVisible(int col, int row) {
+        return col >= firstCol() && col < endCol() && row >= firstRow() && row < endRow();
+    }
+}
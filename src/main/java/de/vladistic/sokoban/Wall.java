@@ -1,7 +0,0 @@
-package de.vladistic.sokoban;
-
-public class Wall extends Field{
-    public Wall() {
-        super("projekt/wall.png");
-    }
-}
@@ -0,0 +1,272 @@
+package de.vladistic.sokoban.engine;
+
+/**
+ * Headless Sokoban board holding the complete game state in primitive arrays.
+ * Cells are addressed by their index {@code row * cols + col}. The static layout
+ * (walls, floor, goals) never changes after construction; crates are kept in a
+ * bitset and the player as a single cell index. {@link #move(int)} and
+ * {@link #canMove(int)} do not allocate, so the board can be driven by bots and
+ * tests without a JavaFX stage.
+ */
+public final class Board {
+    public static final byte FLOOR = 0;
+    public static final byte WALL = 1;
+    public static final byte GOAL = 2;
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    /** Result of {@link #move(int)}: the player could not move. */
+    public static final int BLOCKED = 0;
+    /** Result of {@link #move(int)}: the player walked onto a free cell. */
+    public static final int WALKED = 1;
+    /** Result of {@link #move(int)}: the player pushed a crate. */
+    public static final int PUSHED = 2;
+
+    private static final int[] D_ROW = {-1, 1, 0, 0};
+    private static final int[] D_COL = {0, 0, -1, 1};
+    private static final String LURD = "udlr";
+
+    private final int rows;
+    private final int cols;
+    private final byte[] cells;
+    private final long[] crates;
+    private final int goalCount;
+    private int cratesOnGoals;
+    private int player;
+    private int crateVersion = 0;
+
+    /**
+     * Creates a board from its static layout and the initial dynamic state.
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param cells Static cell types ({@link #FLOOR}, {@link #WALL}, {@link #GOAL}), row-major.
+     * @param cratePositions Cell indices of all crates.
+     * @param player Cell index of the player.
+     * @throws IllegalArgumentException If the dimensions or positions are not valid.
+     */
+    public Board(int rows, int cols, byte[] cells, int[] cratePositions, int player) {
+        this(new Level(rows, cols, cells, cratePositions, player));
+    }
+
+    /**
+     * Creates a board in the starting position of a level.
+     * @param level The level to start.
+     */
+    public Board(Level level) {
+        this.rows = level.getRows();
+        this.cols = level.getCols();
+        this.cells = level.cells();
+        this.crates = new long[(cells.length + 63) >>> 6];
+        for (int pos : level.crates()) {
+            crates[pos >>> 6] |= 1L << pos;
+        }
+        int goals = 0;
+        for (int pos = 0; pos < cells.length; pos++) {
+            if (cells[pos] == GOAL) {
+                goals++;
+                if (hasCrate(pos)) {
+                    cratesOnGoals++;
+                }
+            }
+        }
+        this.goalCount = goals;
+        this.player = level.getPlayer();
+    }
+
+    private Board(Board other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.cells = other.cells;
+        this.crates = other.crates.clone();
+        this.goalCount = other.goalCount;
+        this.cratesOnGoals = other.cratesOnGoals;
+        this.player = other.player;
+        this.crateVersion = other.crateVersion;
+    }
+
+    /**
+     * @return An independent copy sharing the immutable static layout.
+     */
+    public Board copy() {
+        return new Board(this);
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int size() { return cells.length; }
+    public int getPlayer() { return player; }
+    public int getPlayerRow() { return player / cols; }
+    public int getPlayerCol() { return player % cols; }
+    public int getGoalCount() { return goalCount; }
+    public int getCratesOnGoals() { return cratesOnGoals; }
+
+    /**
+     * @return A counter that changes whenever a crate moves, for caches of anything
+     *         that depends on the crates but not on the player.
+     */
+    public int getCrateVersion() { return crateVersion; }
+
+    public int index(int row, int col) { return row * cols + col; }
+    public byte cellAt(int pos) { return cells[pos]; }
+    public boolean isWall(int pos) { return cells[pos] == WALL; }
+    public boolean isGoal(int pos) { return cells[pos] == GOAL; }
+    public boolean hasCrate(int pos) { return (crates[pos >>> 6] & (1L << pos)) != 0; }
+
+    /**
+     * Finds the next crate at or after the given cell, for iterating all crates
+     * without scanning empty cells.
+     * @param from The cell index to start searching at.
+     * @return The cell index of the next crate, or -1 if there is none.
+     */
+    public int nextCrate(int from) {
+        if (from >= cells.length) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = crates[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == crates.length) {
+                return -1;
+            }
+            bits = crates[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @param pos A cell index.
+     * @return true if neither a wall nor a crate occupies the cell.
+     */
+    public boolean isFree(int pos) {
+        return cells[pos] != WALL && !hasCrate(pos);
+    }
+
+    /**
+     * Returns the index of the neighbouring cell.
+     * @param pos The cell index to start from.
+     * @param dir One of {@link #UP}, {@link #DOWN}, {@link #LEFT}, {@link #RIGHT}.
+     * @return The neighbouring cell index, or -1 if it lies outside the board.
+     */
+    public int neighbour(int pos, int dir) {
+        return switch (dir) {
+            case UP -> pos >= cols ? pos - cols : -1;
+            case DOWN -> pos + cols < cells.length ? pos + cols : -1;
+            case LEFT -> pos % cols != 0 ? pos - 1 : -1;
+            case RIGHT -> (pos + 1) % cols != 0 ? pos + 1 : -1;
+            default -> throw new IllegalArgumentException("Invalid direction " + dir);
+        };
+    }
+
+    public static int dRow(int dir) { return D_ROW[dir]; }
+    public static int dCol(int dir) { return D_COL[dir]; }
+    public static int opposite(int dir) { return dir ^ 1; }
+
+    /**
+     * Converts a step to LURD notation: lowercase for moves, uppercase for pushes.
+     * @param dir The direction of the step.
+     * @param pushed true if the step pushed a crate.
+     * @return One of 'l', 'u', 'r', 'd', 'L', 'U', 'R', 'D'.
+     */
+    public static char toLurd(int dir, boolean pushed) {
+        char c = LURD.charAt(dir);
+        return pushed ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * Converts a LURD character to a direction, ignoring its case.
+     * @param lurd One of 'l', 'u', 'r', 'd' in either case.
+     * @return The direction, or -1 if the character is not a LURD step.
+     */
+    public static int fromLurd(char lurd) {
+        return LURD.indexOf(Character.toLowerCase(lurd));
+    }
+
+    /**
+     * @param dir The direction to check.
+     * @return true if the player can walk or push a crate in the given direction.
+     */
+    public boolean canMove(int dir) {
+        int target = neighbour(player, dir);
+        if (target < 0 || cells[target] == WALL) {
+            return false;
+        }
+        if (!hasCrate(target)) {
+            return true;
+        }
+        int behind = neighbour(target, dir);
+        return behind >= 0 && isFree(behind);
+    }
+
+    /**
+     * Moves the player one cell, pushing a crate if one is in the way.
+     * @param dir The direction to move in.
+     * @return {@link #BLOCKED}, {@link #WALKED} or {@link #PUSHED}.
+     */
+    public int move(int dir) {
+        int target = neighbour(player, dir);
+        if (target < 0 || cells[target] == WALL) {
+            return BLOCKED;
+        }
+        if (!hasCrate(target)) {
+            player = target;
+            return WALKED;
+        }
+        int behind = neighbour(target, dir);
+        if (behind < 0 || !isFree(behind)) {
+            return BLOCKED;
+        }
+        crates[target >>> 6] &= ~(1L << target);
+        crates[behind >>> 6] |= 1L << behind;
+        if (cells[target] == GOAL) {
+            cratesOnGoals--;
+        }
+        if (cells[behind] == GOAL) {
+            cratesOnGoals++;
+        }
+        crateVersion++;
+        player = target;
+        return PUSHED;
+    }
+
+    /**
+     * Takes back a step made by {@link #move(int)}: the player steps back against the
+     * direction and, if the step was a push, pulls the crate along.
+     * @param dir The direction of the step to take back.
+     * @param pushed true if the step pushed a crate.
+     * @throws IllegalStateException If the board does not match the step.
+     */
+    public void unmove(int dir, boolean pushed) {
+        int back = neighbour(player, opposite(dir));
+        if (back < 0 || !isFree(back)) {
+            throw new IllegalStateException("Cannot take back " + toLurd(dir, pushed));
+        }
+        if (pushed) {
+            int crate = neighbour(player, dir);
+            if (crate < 0 || !hasCrate(crate)) {
+                throw new IllegalStateException("No crate to pull back for " + toLurd(dir, true));
+            }
+            crates[crate >>> 6] &= ~(1L << crate);
+            crates[player >>> 6] |= 1L << player;
+            if (cells[crate] == GOAL) {
+                cratesOnGoals--;
+            }
+            if (cells[player] == GOAL) {
+                cratesOnGoals++;
+            }
+            crateVersion++;
+        }
+        player = back;
+    }
+
+    /**
+     * Checks if every goal is covered by a crate.
+     * The number of covered goals is kept up to date by every push, so this is O(1).
+     * @return true if the level is solved.
+     */
+    public boolean isSolved() {
+        return cratesOnGoals == goalCount;
+    }
+}
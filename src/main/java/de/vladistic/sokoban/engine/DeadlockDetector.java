@@ -0,0 +1,186 @@
+package de.vladistic.sokoban.engine;
+
+/**
+ * Per-level deadlock analysis. Simple dead squares, cells from which a crate can
+ * never reach any goal, are computed once by pulling crates backwards from every
+ * goal. Freeze deadlocks, crates that can no longer move along either axis while
+ * not standing on a goal, are checked after a push with a few neighbour lookups.
+ * <p>
+ * Both checks assume every crate has to end on a goal, i.e. the level has as many
+ * crates as goals.
+ */
+public final class DeadlockDetector {
+    private final int cols;
+    private final byte[] cells;
+    private final boolean[] dead;
+    private final boolean[] checking;
+    private final int deadCount;
+
+    private static final int NOT_FROZEN = 0;
+    private static final int FROZEN = 1;
+    private static final int FROZEN_OFF_GOAL = 2;
+
+    /**
+     * Analyses the static layout of a board.
+     * @param board Any board of the level.
+     */
+    public DeadlockDetector(Board board) {
+        cols = board.getCols();
+        int size = board.size();
+        cells = new byte[size];
+        for (int pos = 0; pos < size; pos++) {
+            cells[pos] = board.cellAt(pos);
+        }
+        checking = new boolean[size];
+
+        // Reverse play: a crate on a live cell can be pulled to a neighbour if the
+        // player has room to step back behind it
+        boolean[] live = new boolean[size];
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (cells[pos] == Board.GOAL) {
+                live[pos] = true;
+                queue[tail++] = pos;
+            }
+        }
+        while (head < tail) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int to = open(board, pos, dir);
+                int player = to >= 0 ? open(board, to, dir) : -1;
+                if (player >= 0 && !live[to]) {
+                    live[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        dead = new boolean[size];
+        int count = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (cells[pos] != Board.WALL && !live[pos]) {
+                dead[pos] = true;
+                count++;
+            }
+        }
+        deadCount = count;
+    }
+
+    private DeadlockDetector(DeadlockDetector other) {
+        cols = other.cols;
+        cells = other.cells;
+        dead = other.dead;
+        deadCount = other.deadCount;
+        checking = new boolean[cells.length];
+    }
+
+    /**
+     * The freeze check is not thread-safe; parallel searches give each worker a copy.
+     * @return A detector sharing the precomputed dead squares of this one.
+     */
+    public DeadlockDetector copy() {
+        return new DeadlockDetector(this);
+    }
+
+    /**
+     * @param pos A cell index.
+     * @return true if a crate on this cell can never reach a goal.
+     */
+    public boolean isDead(int pos) {
+        return dead[pos];
+    }
+
+    /**
+     * @return The number of simple dead squares of the level.
+     */
+    public int getDeadSquareCount() {
+        return deadCount;
+    }
+
+    /**
+     * Checks if the crate that was just pushed, together with its neighbours, can
+     * never move again while at least one of the frozen crates is off goal.
+     * @param board The board after the push.
+     * @param crate The cell of the pushed crate.
+     * @return true if the position is deadlocked.
+     */
+    public boolean isFreezeDeadlock(Board board, int crate) {
+        return isFreezeDeadlock(board, null, crate);
+    }
+
+    /**
+     * Same as {@link #isFreezeDeadlock(Board, int)} for callers that track crates in a
+     * boolean array, such as the solver.
+     * @param occupied occupied[pos] is true if a crate stands on the cell.
+     * @param crate The cell of the pushed crate.
+     * @return true if the position is deadlocked.
+     */
+    public boolean isFreezeDeadlock(boolean[] occupied, int crate) {
+        return isFreezeDeadlock(null, occupied, crate);
+    }
+
+    private boolean isFreezeDeadlock(Board board, boolean[] occupied, int crate) {
+        return frozen(board, occupied, crate) == FROZEN_OFF_GOAL;
+    }
+
+    /**
+     * @return NOT_FROZEN, FROZEN if all crates it depends on are on goals, or FROZEN_OFF_GOAL.
+     */
+    private int frozen(Board board, boolean[] occupied, int crate) {
+        checking[crate] = true;
+        int horizontal = blocked(board, occupied, crate, Board.LEFT, Board.RIGHT);
+        int vertical = horizontal != NOT_FROZEN ? blocked(board, occupied, crate, Board.UP, Board.DOWN) : NOT_FROZEN;
+        checking[crate] = false;
+        if (vertical == NOT_FROZEN) {
+            return NOT_FROZEN;
+        }
+        if (cells[crate] != Board.GOAL) {
+            return FROZEN_OFF_GOAL;
+        }
+        return Math.max(horizontal, vertical);
+    }
+
+    /**
+     * A crate is blocked along an axis if a wall is on either side, if both sides are
+     * dead squares, or if a neighbouring crate is frozen itself. Crates already being
+     * checked count as walls to break cycles.
+     */
+    private int blocked(Board board, boolean[] occupied, int crate, int dirA, int dirB) {
+        int a = neighbour(crate, dirA);
+        int b = neighbour(crate, dirB);
+        if (isWall(a) || isWall(b)) {
+            return FROZEN;
+        }
+        if (dead[a] && dead[b]) {
+            return FROZEN;
+        }
+        int result = hasCrate(board, occupied, a) ? frozen(board, occupied, a) : NOT_FROZEN;
+        if (result != FROZEN_OFF_GOAL && hasCrate(board, occupied, b)) {
+            result = Math.max(result, frozen(board, occupied, b));
+        }
+        return result;
+    }
+
+    private boolean isWall(int pos) {
+        return pos < 0 || cells[pos] == Board.WALL || checking[pos];
+    }
+
+    private static boolean hasCrate(Board board, boolean[] occupied, int pos) {
+        return occupied != null ? occupied[pos] : board.hasCrate(pos);
+    }
+
+    private int neighbour(int pos, int dir) {
+        return switch (dir) {
+            case Board.UP -> pos >= cols ? pos - cols : -1;
+            case Board.DOWN -> pos + cols < cells.length ? pos + cols : -1;
+            case Board.LEFT -> pos % cols != 0 ? pos - 1 : -1;
+            default -> (pos + 1) % cols != 0 ? pos + 1 : -1;
+        };
+    }
+
+    private static int open(Board board, int pos, int dir) {
+        int n = board.neighbour(pos, dir);
+        return n >= 0 && !board.isWall(n) ? n : -1;
+    }
+}
@@ -0,0 +1,73 @@
+package de.vladistic.sokoban.engine;
+
+/**
+ * Immutable, compact description of a level's starting position: static cell types
+ * as a byte per cell, the crate cells and the player cell. A {@link Board} created
+ * from a level shares its cell array, so starting the same level again is cheap.
+ */
+public final class Level {
+    private final int rows;
+    private final int cols;
+    private final byte[] cells;
+    private final int[] crates;
+    private final int player;
+
+    /**
+     * @param rows Number of rows.
+     * @param cols Number of columns.
+     * @param cells Static cell types ({@link Board#FLOOR}, {@link Board#WALL}, {@link Board#GOAL}), row-major.
+     * @param crates Cell indices of all crates.
+     * @param player Cell index of the player.
+     * @throws IllegalArgumentException If the dimensions or positions are not valid.
+     */
+    public Level(int rows, int cols, byte[] cells, int[] crates, int player) {
+        this(cells.clone(), crates.clone(), rows, cols, player);
+    }
+
+    private Level(byte[] cells, int[] crates, int rows, int cols, int player) {
+        if (rows <= 0 || cols <= 0 || cells.length != rows * cols) {
+            throw new IllegalArgumentException("Invalid level dimensions " + cols + "x" + rows);
+        }
+        if (player < 0 || player >= cells.length) {
+            throw new IllegalArgumentException("Player position " + player + " is outside the level");
+        }
+        for (int pos : crates) {
+            if (pos < 0 || pos >= cells.length) {
+                throw new IllegalArgumentException("Crate position " + pos + " is outside the level");
+            }
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = cells;
+        this.crates = crates;
+        this.player = player;
+    }
+
+    /**
+     * Creates a level that takes ownership of the arrays instead of copying them, for
+     * readers that fill them for this level only. Neither array may be changed afterwards.
+     * @see #Level(int, int, byte[], int[], int)
+     * @throws IllegalArgumentException If the dimensions or positions are not valid.
+     */
+    public static Level adopt(int rows, int cols, byte[] cells, int[] crates, int player) {
+        return new Level(cells, crates, rows, cols, player);
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int size() { return cells.length; }
+    public byte cellAt(int pos) { return cells[pos]; }
+    public int getCrateCount() { return crates.length; }
+    public int getCrate(int i) { return crates[i]; }
+    public int getPlayer() { return player; }
+
+    /**
+     * @return A new board in this level's starting position.
+     */
+    public Board toBoard() {
+        return new Board(this);
+    }
+
+    byte[] cells() { return cells; }
+    int[] crates() { return crates; }
+}
@@ -0,0 +1,178 @@
+package de.vladistic.sokoban.engine;
+
+/**
+ * Undo/redo history of the steps played on a {@link Board}. Each step is one byte
+ * holding its direction and whether it pushed a crate, kept in a ring buffer whose
+ * capacity is a power of two. Undo and redo only move an index and replay a single
+ * step on the board, so both are O(1) however long the game gets; no board
+ * snapshots are stored.
+ * <p>
+ * By default the buffer doubles when full. With a step limit it overwrites the
+ * oldest steps instead, which then can no longer be undone.
+ */
+public final class MoveJournal {
+    private static final int PUSH = 4;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int limit;
+    private byte[] steps;
+    private int mask;
+    private int start = 0;   // Ring index of the oldest retained step
+    private int done = 0;    // Steps that can be undone
+    private int undone = 0;  // Steps after them that can be redone
+    private int pushes = 0;
+    private boolean truncated = false;
+
+    /**
+     * Creates a journal that keeps every step.
+     */
+    public MoveJournal() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param limit The number of steps kept before the oldest ones are dropped.
+     */
+    public MoveJournal(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Journal limit must be positive");
+        }
+        this.limit = Math.min(limit, MAX_CAPACITY);
+        this.steps = new byte[16];
+        this.mask = steps.length - 1;
+    }
+
+    /**
+     * Records a step that was just played. Steps that could have been redone are discarded.
+     * @param dir The direction of the step.
+     * @param pushed true if the step pushed a crate.
+     */
+    public void record(int dir, boolean pushed) {
+        undone = 0;
+        if (done == limit) {
+            if ((steps[start] & PUSH) != 0) {
+                pushes--;
+            }
+            start = (start + 1) & mask;
+            done--;
+            truncated = true;
+        } else if (done == steps.length) {
+            grow();
+        }
+        steps[(start + done) & mask] = (byte) (dir | (pushed ? PUSH : 0));
+        done++;
+        if (pushed) {
+            pushes++;
+        }
+    }
+
+    /**
+     * Takes back the last step on the board.
+     * @param board The board the steps were played on.
+     * @return The step taken back, decode it with {@link #direction(int)} and
+     *         {@link #isPush(int)}; -1 if there is nothing to undo.
+     */
+    public int undo(Board board) {
+        if (done == 0) {
+            return -1;
+        }
+        int step = steps[(start + done - 1) & mask];
+        board.unmove(direction(step), isPush(step));
+        done--;
+        undone++;
+        if (isPush(step)) {
+            pushes--;
+        }
+        return step;
+    }
+
+    /**
+     * Plays the last undone step again.
+     * @param board The board the steps were played on.
+     * @return The step played, or -1 if there is nothing to redo.
+     */
+    public int redo(Board board) {
+        if (undone == 0) {
+            return -1;
+        }
+        int step = steps[(start + done) & mask];
+        if (board.move(direction(step)) == Board.BLOCKED) {
+            throw new IllegalStateException("Cannot redo " + Board.toLurd(direction(step), isPush(step)));
+        }
+        done++;
+        undone--;
+        if (isPush(step)) {
+            pushes++;
+        }
+        return step;
+    }
+
+    public boolean canUndo() { return done > 0; }
+    public boolean canRedo() { return undone > 0; }
+
+    /**
+     * @return The number of steps that can be undone.
+     */
+    public int getMoveCount() { return done; }
+
+    /**
+     * @return The number of pushes among the steps that can be undone.
+     */
+    public int getPushCount() { return pushes; }
+
+    /**
+     * @return true if steps were dropped because the limit was reached.
+     */
+    public boolean isTruncated() { return truncated; }
+
+    /**
+     * Forgets all steps.
+     */
+    public void clear() {
+        start = 0;
+        done = 0;
+        undone = 0;
+        pushes = 0;
+        truncated = false;
+    }
+
+    /**
+     * Exports the steps that can be undone in LURD notation, the usual format of
+     * Sokoban solutions. Undone steps are not included.
+     * @return The steps, e.g. "rrUdL".
+     */
+    public String toLurd() {
+        char[] lurd = new char[done];
+        for (int i = 0; i < done; i++) {
+            int step = steps[(start + i) & mask];
+            lurd[i] = Board.toLurd(direction(step), isPush(step));
+        }
+        return new String(lurd);
+    }
+
+    /**
+     * @param step A step returned by {@link #undo(Board)} or {@link #redo(Board)}.
+     * @return The direction of the step.
+     */
+    public static int direction(int step) {
+        return step & 3;
+    }
+
+    /**
+     * @param step A step returned by {@link #undo(Board)} or {@link #redo(Board)}.
+     * @return true if the step pushed a crate.
+     */
+    public static boolean isPush(int step) {
+        return (step & PUSH) != 0;
+    }
+
+    private void grow() {
+        byte[] grown = new byte[steps.length * 2];
+        for (int i = 0; i < done; i++) {
+            grown[i] = steps[(start + i) & mask];
+        }
+        steps = grown;
+        mask = grown.length - 1;
+        start = 0;
+    }
+}
@@ -0,0 +1,119 @@
+package de.vladistic.sokoban.engine;
+
+/**
+ * Shortest walks of the player on a {@link Board}, without pushing. One breadth-first
+ * flood from the player's cell yields the distance to and the last step into every
+ * cell it can reach; any number of path lookups are then answered by following those
+ * steps back from the target, in time proportional to the path length.
+ * <p>
+ * The flood is kept until a crate moves, as reported by {@link Board#getCrateVersion()}.
+ * Walking does not change which cells are reachable, so reachability questions are
+ * answered from the kept flood wherever the player walked in the meantime; paths are
+ * rooted at the cell the flood started from and need a new flood once the player
+ * walked elsewhere. Marks are epoch-stamped, so a new flood only touches the cells
+ * it reaches.
+ * <p>
+ * Not thread-safe.
+ */
+public final class PathFinder {
+    private final Board board;
+    private final int[] seen;
+    private final int[] distance;
+    private final byte[] via;
+    private final int[] queue;
+    private int epoch = 0;
+    private int source = -1;
+    private int version;
+
+    /**
+     * @param board The board to find paths on. Crates and the player may change later.
+     */
+    public PathFinder(Board board) {
+        this.board = board;
+        this.seen = new int[board.size()];
+        this.distance = new int[board.size()];
+        this.via = new byte[board.size()];
+        this.queue = new int[board.size()];
+    }
+
+    /**
+     * @param target A cell index.
+     * @return true if the player can walk to the cell without pushing a crate.
+     */
+    public boolean isReachable(int target) {
+        int player = board.getPlayer();
+        // Any flood of the player's current region answers this, not only one rooted at the player
+        if (!isCurrent() || seen[player] != epoch) {
+            flood(player);
+        }
+        return target >= 0 && target < seen.length && seen[target] == epoch;
+    }
+
+    /**
+     * @param target A cell index.
+     * @return The number of steps of the shortest walk to the cell, -1 if it cannot be reached.
+     */
+    public int distance(int target) {
+        floodFromPlayer();
+        return target >= 0 && target < seen.length && seen[target] == epoch ? distance[target] : -1;
+    }
+
+    /**
+     * Finds a shortest walk from the player to a cell.
+     * @param target A cell index.
+     * @return The directions of the steps in order, empty if the player stands on the
+     *         cell, null if it cannot be reached.
+     */
+    public int[] path(int target) {
+        int length = distance(target);
+        if (length < 0) {
+            return null;
+        }
+        int[] steps = new int[length];
+        int pos = target;
+        for (int i = length - 1; i >= 0; i--) {
+            int dir = via[pos];
+            steps[i] = dir;
+            pos = board.neighbour(pos, Board.opposite(dir));
+        }
+        return steps;
+    }
+
+    private boolean isCurrent() {
+        return source >= 0 && version == board.getCrateVersion();
+    }
+
+    private void floodFromPlayer() {
+        int player = board.getPlayer();
+        if (!isCurrent() || source != player) {
+            flood(player);
+        }
+    }
+
+    private void flood(int start) {
+        if (++epoch == 0) {
+            java.util.Arrays.fill(seen, 0);
+            epoch = 1;
+        }
+        source = start;
+        version = board.getCrateVersion();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        seen[start] = epoch;
+        distance[start] = 0;
+        while (head < tail) {
+            int pos = queue[head++];
+            int next = distance[pos] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n >= 0 && seen[n] != epoch && board.isFree(n)) {
+                    seen[n] = epoch;
+                    distance[n] = next;
+                    via[n] = (byte) dir;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing or decoding a single level.
+ */
+@Name("de.vladistic.sokoban.LevelParse")
+@Label("Level Parse")
+@Category({"Sokoban", "Levels"})
+@Description("Parsing of one level from text or a binary pack")
+@StackTrace(false)
+public class LevelParseEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(LevelParseEvent.class);
+
+    /** @return true if any recording wants this event. */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Format")
+    @Description("\"text\" or \"binary\"")
+    public String format;
+
+    @Label("Pack Index")
+    @Description("Zero-based position in the pack, -1 for a single level string")
+    public int index;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int cols;
+
+    @Label("Crates")
+    public int crates;
+}
@@ -0,0 +1,41 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Setting up a level in the game: board, deadlock analysis and the first draw.
+ */
+@Name("de.vladistic.sokoban.LevelStart")
+@Label("Level Start")
+@Category({"Sokoban", "Levels"})
+@Description("LevelController.setLevel, from the parsed level to the first drawn frame")
+@StackTrace(false)
+public class LevelStartEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(LevelStartEvent.class);
+
+    /** @return true if any recording wants this event. */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int cols;
+
+    @Label("Crates")
+    public int crates;
+
+    @Label("Goals")
+    public int goals;
+
+    @Label("Dead Squares")
+    public int deadSquares;
+}
@@ -0,0 +1,52 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One step of the player, from the key being handled to the end of its animation.
+ */
+@Name("de.vladistic.sokoban.Move")
+@Label("Move")
+@Category({"Sokoban", "Gameplay"})
+@Description("A step or push played in the game, including its animation")
+@StackTrace(false)
+public class MoveEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(MoveEvent.class);
+
+    /** @return true if any recording wants this event. */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Step")
+    @Description("The step in LURD notation, upper case for pushes")
+    public char step;
+
+    @Label("Push")
+    public boolean push;
+
+    @Label("Animated")
+    @Description("false if turbo mode showed the step without animation")
+    public boolean animated;
+
+    @Label("Move Number")
+    public int moveNumber;
+
+    @Label("From")
+    @Description("Cell index of the player before the step")
+    public int from;
+
+    @Label("To")
+    @Description("Cell index of the player after the step")
+    public int to;
+
+    @Label("Board Size")
+    @Description("Number of cells of the level")
+    public int boardSize;
+}
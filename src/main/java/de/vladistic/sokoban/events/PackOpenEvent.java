@@ -0,0 +1,47 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Opening a level pack: the scan for level starts, or reading an index.
+ */
+@Name("de.vladistic.sokoban.PackOpen")
+@Label("Pack Open")
+@Category({"Sokoban", "Levels"})
+@Description("Indexing of a level pack by LevelCatalog")
+@StackTrace(false)
+public class PackOpenEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(PackOpenEvent.class);
+
+    /**
+     * @return true if any recording wants this event. Checked before creating one,
+     *         so nothing is allocated while no recording runs.
+     */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Pack")
+    public String pack;
+
+    @Label("Levels")
+    public int levels;
+
+    @Label("Binary")
+    public boolean binary;
+
+    @Label("Index Sidecar")
+    @Description("Offsets were read from an index instead of scanning the pack")
+    public boolean indexed;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,42 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Drawing one frame of the board on the FX thread. The rasterisation that follows
+ * on the render thread is not included.
+ */
+@Name("de.vladistic.sokoban.Render")
+@Label("Render")
+@Category({"Sokoban", "Rendering"})
+@Description("Draw commands issued for one frame, a full redraw or only dirty tiles")
+@StackTrace(false)
+public class RenderEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RenderEvent.class);
+
+    /** @return true if any recording wants this event. */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Full Redraw")
+    @Description("true if the whole viewport was drawn, false if only dirty tiles")
+    public boolean full;
+
+    @Label("Tiles")
+    @Description("Number of tiles drawn")
+    public int tiles;
+
+    @Label("Tile Size")
+    public int tileSize;
+
+    @Label("Board Size")
+    @Description("Number of cells of the level")
+    public int boardSize;
+}
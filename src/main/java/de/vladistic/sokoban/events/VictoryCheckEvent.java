@@ -0,0 +1,33 @@
+package de.vladistic.sokoban.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A check whether the level is solved, run after every push.
+ */
+@Name("de.vladistic.sokoban.VictoryCheck")
+@Label("Victory Check")
+@Category({"Sokoban", "Gameplay"})
+@StackTrace(false)
+public class VictoryCheckEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(VictoryCheckEvent.class);
+
+    /** @return true if any recording wants this event. */
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Solved")
+    public boolean solved;
+
+    @Label("Crates on Goals")
+    public int cratesOnGoals;
+
+    @Label("Goals")
+    public int goals;
+}
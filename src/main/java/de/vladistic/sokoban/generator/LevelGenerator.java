@@ -0,0 +1,382 @@
+package de.vladistic.sokoban.generator;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.solver.Solver;
+import de.vladistic.sokoban.solver.SolverResult;
+import de.vladistic.sokoban.utils.LevelWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates solvable levels. A layout of overlapping rooms joined by corridors is
+ * carved out of solid wall, the crates start on the goals and are pulled away by
+ * random reverse play: every pull is the exact reverse of a push, so pushing the
+ * crates back is a solution. The deepest position of the reverse play with no crate
+ * left on a goal becomes the level.
+ * <p>
+ * Each level is then solved push-optimally and scored by its solution: pushes,
+ * crate changes (consecutive pushes moving different crates) and moves. Levels the
+ * solver cannot finish within its node limit are dropped, so every shipped level
+ * comes with known optimal counts.
+ * <p>
+ * Candidates are independent and seeded by their number, so a batch runs on all
+ * cores and produces the same pack for the same arguments:
+ * <pre>
+ * java de.vladistic.sokoban.generator.LevelGenerator &lt;candidates&gt; &lt;best per band&gt; &lt;pack&gt;
+ *      [cols rows crates] [seed]
+ * </pre>
+ */
+public class LevelGenerator {
+    private static final long NODE_LIMIT = 200_000;
+    private static final int TABLE_BITS = 18;
+    /** Pulls of the reverse play per crate. */
+    private static final int PULLS_PER_CRATE = 40;
+
+    /**
+     * Difficulty bands by score, each from its lower bound up to the next.
+     */
+    public enum Difficulty {
+        EASY(0), MEDIUM(30), HARD(60), EXPERT(100);
+
+        private final int minScore;
+
+        Difficulty(int minScore) {
+            this.minScore = minScore;
+        }
+
+        public static Difficulty of(int score) {
+            Difficulty band = EASY;
+            for (Difficulty d : values()) {
+                if (score >= d.minScore) {
+                    band = d;
+                }
+            }
+            return band;
+        }
+    }
+
+    /**
+     * A generated level with the counts of its optimal solution.
+     */
+    public static final class Candidate {
+        private final Level level;
+        private final int moves;
+        private final int pushes;
+        private final int crateChanges;
+
+        Candidate(Level level, int moves, int pushes, int crateChanges) {
+            this.level = level;
+            this.moves = moves;
+            this.pushes = pushes;
+            this.crateChanges = crateChanges;
+        }
+
+        public Level getLevel() { return level; }
+        public int getMoves() { return moves; }
+        public int getPushes() { return pushes; }
+        public int getCrateChanges() { return crateChanges; }
+
+        /**
+         * @return pushes + 2 * crate changes + moves / 10, higher is harder.
+         */
+        public int getScore() {
+            return pushes + 2 * crateChanges + moves / 10;
+        }
+
+        public Difficulty getDifficulty() {
+            return Difficulty.of(getScore());
+        }
+    }
+
+    private final int cols;
+    private final int rows;
+    private final int crates;
+
+    /**
+     * @param cols Columns including the outer wall, at least 5.
+     * @param rows Rows including the outer wall, at least 5.
+     * @param crates The number of crates and goals.
+     */
+    public LevelGenerator(int cols, int rows, int crates) {
+        if (cols < 5 || rows < 5 || crates < 1) {
+            throw new IllegalArgumentException("Levels need at least 5x5 cells and one crate");
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.crates = crates;
+    }
+
+    /**
+     * Generates and scores one level.
+     * @param random The source of all choices, so equal seeds give equal levels.
+     * @return The level, or null if this attempt gave no level the solver could finish.
+     */
+    public Candidate generate(Random random) {
+        byte[] cells = carve(random);
+        List<Integer> floor = new ArrayList<>();
+        for (int pos = 0; pos < cells.length; pos++) {
+            if (cells[pos] != Board.WALL) {
+                floor.add(pos);
+            }
+        }
+        if (floor.size() < crates * 3 + 1) {
+            return null;
+        }
+        Collections.shuffle(floor, random);
+        int[] goals = new int[crates];
+        for (int i = 0; i < crates; i++) {
+            goals[i] = floor.get(i);
+            cells[goals[i]] = Board.GOAL;
+        }
+        Level level = reversePlay(cells, goals, floor.get(crates), random);
+        return level != null ? score(level) : null;
+    }
+
+    /**
+     * Carves rooms of 2 to 4 cells per side into solid wall and joins each to
+     * the previous one by an L-shaped corridor.
+     */
+    private byte[] carve(Random random) {
+        byte[] cells = new byte[rows * cols];
+        Arrays.fill(cells, Board.WALL);
+        int rooms = 2 + random.nextInt(3);
+        int lastRow = -1;
+        int lastCol = -1;
+        for (int i = 0; i < rooms; i++) {
+            int height = Math.min(2 + random.nextInt(3), rows - 2);
+            int width = Math.min(2 + random.nextInt(3), cols - 2);
+            int top = 1 + random.nextInt(rows - 1 - height);
+            int left = 1 + random.nextInt(cols - 1 - width);
+            for (int r = top; r < top + height; r++) {
+                Arrays.fill(cells, r * cols + left, r * cols + left + width, Board.FLOOR);
+            }
+            int row = top + random.nextInt(height);
+            int col = left + random.nextInt(width);
+            if (lastRow >= 0) {
+                for (int c = Math.min(col, lastCol); c <= Math.max(col, lastCol); c++) {
+                    cells[lastRow * cols + c] = Board.FLOOR;
+                }
+                for (int r = Math.min(row, lastRow); r <= Math.max(row, lastRow); r++) {
+                    cells[r * cols + col] = Board.FLOOR;
+                }
+            }
+            lastRow = row;
+            lastCol = col;
+        }
+        return cells;
+    }
+
+    /**
+     * Pulls crates away from the goals at random, the player walking freely between pulls.
+     * @return The deepest position with no crate on a goal, null if there was none.
+     */
+    private Level reversePlay(byte[] cells, int[] goals, int start, Random random) {
+        Board board = new Board(rows, cols, cells, goals, start);
+        int[] region = new int[cells.length];
+        boolean[] seen = new boolean[cells.length];
+        int[] pulls = new int[cells.length * 4];
+        int[] bestCrates = null;
+        int bestPlayer = -1;
+        int player = start;
+        for (int step = 0; step < PULLS_PER_CRATE * crates; step++) {
+            // Every pull from any cell the player can walk to
+            Arrays.fill(seen, false);
+            int count = 0;
+            int tail = 0;
+            region[tail++] = player;
+            seen[player] = true;
+            for (int head = 0; head < tail; head++) {
+                int pos = region[head];
+                for (int dir = 0; dir < 4; dir++) {
+                    int n = board.neighbour(pos, dir);
+                    if (n < 0 || board.isWall(n)) {
+                        continue;
+                    }
+                    if (board.hasCrate(n)) {
+                        int back = board.neighbour(pos, Board.opposite(dir));
+                        if (back >= 0 && board.isFree(back)) {
+                            pulls[count++] = pos * 4 + dir;
+                        }
+                    } else if (!seen[n]) {
+                        seen[n] = true;
+                        region[tail++] = n;
+                    }
+                }
+            }
+            if (count == 0) {
+                break;
+            }
+            int pull = pulls[random.nextInt(count)];
+            if (pull >> 2 != player) {
+                board = new Board(rows, cols, cells, crateCells(board), pull >> 2);
+            }
+            // Taking back a push in the crate's direction pulls it towards the player
+            board.unmove(pull & 3, true);
+            player = board.getPlayer();
+            if (board.getCratesOnGoals() == 0) {
+                bestCrates = crateCells(board);
+                bestPlayer = player;
+            }
+        }
+        if (bestCrates == null) {
+            return null;
+        }
+        return new Level(rows, cols, cells, bestCrates, bestPlayer);
+    }
+
+    private static int[] crateCells(Board board) {
+        int[] cells = new int[board.size()];
+        int count = 0;
+        for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+            cells[count++] = pos;
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    /**
+     * Solves the level push-optimally and counts the crate changes of the solution.
+     */
+    private static Candidate score(Level level) {
+        Solver solver = new Solver(Solver.Algorithm.A_STAR);
+        solver.setNodeLimit(NODE_LIMIT);
+        solver.setTableBits(TABLE_BITS);
+        SolverResult result = solver.solve(level);
+        if (!result.isSolved() || result.getPushCount() == 0) {
+            return null;
+        }
+        Board board = level.toBoard();
+        String moves = result.getMoves();
+        int changes = 0;
+        int lastCrate = -1;
+        for (int i = 0; i < moves.length(); i++) {
+            int dir = Board.fromLurd(moves.charAt(i));
+            if (Character.isUpperCase(moves.charAt(i))) {
+                int crate = board.neighbour(board.getPlayer(), dir);
+                if (lastCrate >= 0 && crate != lastCrate) {
+                    changes++;
+                }
+                lastCrate = board.neighbour(crate, dir);
+            }
+            board.move(dir);
+        }
+        return new Candidate(level, result.getMoveCount(), result.getPushCount(), changes);
+    }
+
+    /**
+     * The level in the native format with the player on the smallest cell it can walk to,
+     * so positions differing only by where the player stands in the same area are equal.
+     */
+    private static String dedupKey(Level level) {
+        Board board = level.toBoard();
+        boolean[] seen = new boolean[board.size()];
+        int[] queue = new int[board.size()];
+        int tail = 0;
+        int smallest = board.getPlayer();
+        queue[tail++] = smallest;
+        seen[smallest] = true;
+        for (int head = 0; head < tail; head++) {
+            int pos = queue[head];
+            smallest = Math.min(smallest, pos);
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n >= 0 && !seen[n] && board.isFree(n)) {
+                    seen[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        byte[] cells = new byte[level.size()];
+        for (int pos = 0; pos < cells.length; pos++) {
+            cells[pos] = level.cellAt(pos);
+        }
+        return LevelWriter.toNative(new Level(level.getRows(), level.getCols(), cells, crateCells(board), smallest));
+    }
+
+    /**
+     * Generates candidates on all cores and keeps the highest scoring ones per band.
+     * @param count The number of candidates to generate.
+     * @param best The number of levels to keep per band.
+     * @param seed The seed, candidate i is generated from seed + i.
+     * @return The kept levels per band, best first. Levels generated more than once are kept once.
+     */
+    public Map<Difficulty, List<Candidate>> batch(int count, int best, long seed) {
+        Map<Difficulty, List<Candidate>> bands = IntStream.range(0, count).parallel()
+                .mapToObj(i -> generate(new Random(seed + i)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Candidate::getDifficulty,
+                        () -> new EnumMap<>(Difficulty.class), Collectors.toList()));
+        Map<Difficulty, List<Candidate>> kept = new EnumMap<>(Difficulty.class);
+        bands.forEach((band, candidates) -> {
+            Set<String> seen = new HashSet<>();
+            kept.put(band, candidates.stream()
+                    .sorted(Comparator.comparingInt(Candidate::getScore).reversed())
+                    .filter(candidate -> seen.add(dedupKey(candidate.getLevel())))
+                    .limit(best)
+                    .collect(Collectors.toList()));
+        });
+        return kept;
+    }
+
+    /**
+     * @param args The number of candidates, the levels to keep per band and the pack to write,
+     *             optionally followed by columns, rows and crates and by the seed.
+     * @throws IOException If the pack cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 && args.length != 6 && args.length != 7) {
+            System.err.println("Usage: LevelGenerator <candidates> <best per band> <pack> [cols rows crates] [seed]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[0]);
+        int best = Integer.parseInt(args[1]);
+        if (count < 1 || best < 1) {
+            System.err.println("The candidates and the best per band must be at least 1");
+            System.exit(2);
+        }
+        Path pack = Path.of(args[2]);
+        LevelGenerator generator = args.length >= 6
+                ? new LevelGenerator(Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]))
+                : new LevelGenerator(12, 10, 3);
+        long seed = args.length == 7 ? Long.parseLong(args[6]) : 1;
+
+        long start = System.nanoTime();
+        Map<Difficulty, List<Candidate>> bands = generator.batch(count, best, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Level> levels = new ArrayList<>();
+        try (Writer out = Files.newBufferedWriter(pack, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Difficulty, List<Candidate>> band : bands.entrySet()) {
+                List<Candidate> kept = band.getValue();
+                // Easiest first, so the pack gets harder from start to end
+                for (int i = kept.size() - 1; i >= 0; i--) {
+                    levels.add(kept.get(i).getLevel());
+                }
+                System.out.printf("%-6s %3d levels, score %d to %d, pushes %d to %d%n", band.getKey(), kept.size(),
+                        kept.get(kept.size() - 1).getScore(), kept.get(0).getScore(),
+                        kept.stream().mapToInt(Candidate::getPushes).min().orElse(0),
+                        kept.stream().mapToInt(Candidate::getPushes).max().orElse(0));
+            }
+            LevelWriter.write(levels, out);
+        }
+        System.out.printf("%d candidates, %d levels written to %s in %.1fs on %d cores%n", count, levels.size(),
+                pack, seconds, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,174 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A* over push states. Every node stores its sorted crate cells and the normalised
+ * player position; the transposition table filters states already reached with
+ * fewer pushes, the deadlock pruner filters dead ones.
+ */
+final class AStarSearch {
+    /** A* keeps one generation of table entries, stamp 0 would match empty slots. */
+    private static final int STAMP = 1;
+
+    private final SearchSpace space;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+    private final SearchBudget budget;
+    private final SearchBudget.Counter counter;
+
+    AStarSearch(SearchSpace space, Heuristic heuristic, TranspositionTable table, SearchBudget budget) {
+        this.space = space;
+        this.heuristic = heuristic.copy();
+        this.table = table;
+        this.budget = budget;
+        this.counter = budget.counter();
+    }
+
+    SolverResult run(Board board) {
+        boolean[] occupied = new boolean[space.size];
+        Reachability reach = new Reachability(space);
+        Reachability childReach = new Reachability(space);
+        DeadlockPruner pruner = new DeadlockPruner(space);
+        int[] next = space.next;
+
+        int[] startCrates = SearchSpace.crates(board);
+        for (int crate : startCrates) {
+            occupied[crate] = true;
+        }
+        int startPlayer = reach.flood(board.getPlayer(), occupied);
+        long startHash = space.hashCrates(startCrates);
+        int startEstimate = heuristic.estimate(startCrates);
+        if (startEstimate == Heuristic.UNSOLVABLE) {
+            return budget.result(SolverResult.Status.UNSOLVABLE, null, 0);
+        }
+        Node root = new Node(startCrates, startHash, startPlayer, 0, startEstimate,
+                space.cratesOnGoals(startCrates), null, -1);
+        Arrays.fill(occupied, false);
+
+        PriorityQueue<Node> open = new PriorityQueue<>();
+        open.add(root);
+        table.visit(root.key(space), 0, STAMP);
+
+        while (!open.isEmpty()) {
+            Node node = open.poll();
+            if (node.onGoals == space.goals.length) {
+                counter.flush();
+                return solution(board, node);
+            }
+            int best = table.cost(node.key(space), STAMP);
+            if (best >= 0 && best < node.cost) {
+                continue; // Reached more cheaply after this node was queued
+            }
+            if (!counter.expand()) {
+                break;
+            }
+
+            int[] crates = node.crates;
+            for (int crate : crates) {
+                occupied[crate] = true;
+            }
+            reach.flood(node.player, occupied);
+            for (int i = 0; i < crates.length; i++) {
+                int crate = crates[i];
+                for (int dir = 0; dir < 4; dir++) {
+                    int behind = next[crate * 4 + Board.opposite(dir)];
+                    int target = next[crate * 4 + dir];
+                    if (behind < 0 || target < 0 || occupied[target] || !reach.reached(behind)
+                            || pruner.isDeadPush(occupied, crate, target)) {
+                        continue;
+                    }
+                    occupied[crate] = false;
+                    occupied[target] = true;
+                    int player = childReach.flood(crate, occupied);
+                    long hash = node.crateHash ^ space.zobristCrate[crate] ^ space.zobristCrate[target];
+                    long key = hash ^ space.zobristPlayer[player];
+                    boolean prune = !table.visit(key, node.cost + 1, STAMP)
+                            || pruner.isCorralDeadlock(childReach, occupied, crate, target);
+                    occupied[target] = false;
+                    occupied[crate] = true;
+                    if (prune) {
+                        continue;
+                    }
+                    int[] childCrates = moveSorted(crates, i, target);
+                    int estimate = heuristic.estimate(childCrates);
+                    if (estimate == Heuristic.UNSOLVABLE) {
+                        continue;
+                    }
+                    int onGoals = node.onGoals - (space.goal[crate] ? 1 : 0) + (space.goal[target] ? 1 : 0);
+                    open.add(new Node(childCrates, hash, player, node.cost + 1,
+                            estimate, onGoals, node, crate * 4 + dir));
+                }
+            }
+            for (int crate : crates) {
+                occupied[crate] = false;
+            }
+        }
+        counter.flush();
+        return budget.result(budget.stopStatus(), null, 0);
+    }
+
+    private SolverResult solution(Board board, Node goal) {
+        int[] from = new int[goal.cost];
+        int[] dirs = new int[goal.cost];
+        for (Node node = goal; node.parent != null; node = node.parent) {
+            from[node.cost - 1] = node.push >> 2;
+            dirs[node.cost - 1] = node.push & 3;
+        }
+        return budget.result(SolverResult.Status.SOLVED, PushPath.toMoves(board, from, dirs, goal.cost), goal.cost);
+    }
+
+    /**
+     * Copies the crate cells with one crate moved, keeping the array sorted.
+     */
+    private static int[] moveSorted(int[] crates, int index, int target) {
+        int[] result = crates.clone();
+        int i = index;
+        while (i > 0 && result[i - 1] > target) {
+            result[i] = result[i - 1];
+            i--;
+        }
+        while (i < result.length - 1 && result[i + 1] < target) {
+            result[i] = result[i + 1];
+            i++;
+        }
+        result[i] = target;
+        return result;
+    }
+
+    private static final class Node implements Comparable<Node> {
+        final int[] crates;
+        final long crateHash;
+        final int player;
+        final int cost;
+        final int estimate;
+        final int onGoals;
+        final Node parent;
+        final int push; // crate cell * 4 + direction
+
+        Node(int[] crates, long crateHash, int player, int cost, int estimate, int onGoals, Node parent, int push) {
+            this.crates = crates;
+            this.crateHash = crateHash;
+            this.player = player;
+            this.cost = cost;
+            this.estimate = estimate;
+            this.onGoals = onGoals;
+            this.parent = parent;
+            this.push = push;
+        }
+
+        long key(SearchSpace space) {
+            return crateHash ^ space.zobristPlayer[player];
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int f = Integer.compare(cost + estimate, other.cost + other.estimate);
+            // Prefer deeper nodes on ties, they are closer to a solution
+            return f != 0 ? f : Integer.compare(other.cost, cost);
+        }
+    }
+}
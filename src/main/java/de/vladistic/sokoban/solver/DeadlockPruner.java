@@ -0,0 +1,230 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.DeadlockDetector;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Deadlock pruning for one search thread. A push is rejected if it moves a crate
+ * onto a dead square or freezes crates off goal. After a push that closes off an
+ * area the player cannot enter, the crates bordering that corral are searched on
+ * their own: if none of them can ever leave the corral and they cannot all reach
+ * goals either, the position is dead.
+ * <p>
+ * Removing the other crates only makes the level easier, so a corral that is dead
+ * in the relaxed search is dead in the real one. The relaxed search is small and
+ * gives up after {@link #CORRAL_NODE_LIMIT} states, in which case nothing is pruned.
+ */
+final class DeadlockPruner {
+    private static final int CORRAL_NODE_LIMIT = 256;
+
+    private final SearchSpace space;
+    private final DeadlockDetector detector;
+
+    private final int[] region;
+    private final int[] queue;
+    private int epoch = 0;
+    private int[] corral;
+    private int corralSize;
+    private final boolean[] relaxed;
+    private final Reachability relaxedReach;
+    private final Reachability childReach;
+    private final Set<Long> seen = new HashSet<>();
+    private final ArrayDeque<int[]> open = new ArrayDeque<>();
+
+    DeadlockPruner(SearchSpace space) {
+        this.space = space;
+        this.detector = space.deadlocks != null ? space.deadlocks.copy() : null;
+        this.region = new int[space.size];
+        this.queue = new int[space.size];
+        this.corral = new int[8];
+        this.relaxed = new boolean[space.size];
+        this.relaxedReach = new Reachability(space);
+        this.childReach = new Reachability(space);
+    }
+
+    /**
+     * @param occupied The crate cells before the push, left unchanged.
+     * @param crate The cell of the pushed crate.
+     * @param target The cell it is pushed to.
+     * @return true if the push leads to a dead square or a freeze deadlock.
+     */
+    boolean isDeadPush(boolean[] occupied, int crate, int target) {
+        if (detector == null) {
+            return false;
+        }
+        if (detector.isDead(target)) {
+            return true;
+        }
+        occupied[crate] = false;
+        occupied[target] = true;
+        boolean frozen = detector.isFreezeDeadlock(occupied, target);
+        occupied[target] = false;
+        occupied[crate] = true;
+        return frozen;
+    }
+
+    /**
+     * Checks the corrals the last push closed off.
+     * @param reach The player's reachability after the push.
+     * @param occupied The crate cells after the push.
+     * @param player The player cell after the push.
+     * @param target The cell of the pushed crate.
+     * @return true if a corral bordering the pushed crate is proven dead.
+     */
+    boolean isCorralDeadlock(Reachability reach, boolean[] occupied, int player, int target) {
+        if (detector == null) {
+            return false;
+        }
+        if (epoch > Integer.MAX_VALUE - 4) {
+            Arrays.fill(region, 0);
+            epoch = 0;
+        }
+        // Each corral gets its own epoch, a crate entering another corral leaves this one
+        int first = epoch + 1;
+        for (int dir = 0; dir < 4; dir++) {
+            int start = space.next[target * 4 + dir];
+            if (start < 0 || occupied[start] || reach.reached(start) || region[start] >= first) {
+                continue;
+            }
+            epoch++;
+            markCorral(reach, occupied, start);
+            if (isDeadCorral(player)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the free cells the player cannot reach around start, together with the
+     * crates bordering them, and collects those crates.
+     */
+    private void markCorral(Reachability reach, boolean[] occupied, int start) {
+        int[] next = space.next;
+        int head = 0;
+        int tail = 0;
+        corralSize = 0;
+        queue[tail++] = start;
+        region[start] = epoch;
+        while (head < tail) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = next[pos * 4 + dir];
+                if (n < 0 || region[n] == epoch) {
+                    continue;
+                }
+                if (occupied[n]) {
+                    region[n] = epoch;
+                    if (corralSize == corral.length) {
+                        corral = Arrays.copyOf(corral, corralSize * 2);
+                    }
+                    corral[corralSize++] = n;
+                } else if (!reach.reached(n)) {
+                    region[n] = epoch;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Breadth-first search with only the corral crates on the board.
+     * @return true if the crates can neither leave the corral nor all reach goals.
+     */
+    private boolean isDeadCorral(int player) {
+        int[] start = Arrays.copyOf(corral, corralSize + 1);
+        if (allOnGoals(start)) {
+            return false;
+        }
+        start[corralSize] = player;
+        seen.clear();
+        open.clear();
+        open.add(start);
+        int[] next = space.next;
+        int expanded = 0;
+        boolean dead = true;
+
+        search:
+        while (!open.isEmpty()) {
+            if (++expanded > CORRAL_NODE_LIMIT) {
+                dead = false;
+                break;
+            }
+            int[] state = open.poll();
+            for (int i = 0; i < corralSize; i++) {
+                relaxed[state[i]] = true;
+            }
+            relaxedReach.flood(state[corralSize], relaxed);
+            for (int i = 0; i < corralSize; i++) {
+                int crate = state[i];
+                for (int dir = 0; dir < 4; dir++) {
+                    int behind = next[crate * 4 + (dir ^ 1)];
+                    int target = next[crate * 4 + dir];
+                    if (behind < 0 || target < 0 || relaxed[target] || !relaxedReach.reached(behind)) {
+                        continue;
+                    }
+                    if (region[target] != epoch) {
+                        dead = false; // The crate leaves the corral
+                        clear(state);
+                        break search;
+                    }
+                    if (detector.isDead(target)) {
+                        continue;
+                    }
+                    relaxed[crate] = false;
+                    relaxed[target] = true;
+                    boolean frozen = detector.isFreezeDeadlock(relaxed, target);
+                    relaxed[target] = false;
+                    relaxed[crate] = true;
+                    if (frozen) {
+                        continue;
+                    }
+                    int[] child = state.clone();
+                    child[i] = target;
+                    if (allOnGoals(child)) {
+                        dead = false;
+                        clear(state);
+                        break search;
+                    }
+                    relaxed[crate] = false;
+                    relaxed[target] = true;
+                    child[corralSize] = childReach.flood(crate, relaxed);
+                    relaxed[target] = false;
+                    relaxed[crate] = true;
+                    if (seen.add(key(child))) {
+                        open.add(child);
+                    }
+                }
+            }
+            clear(state);
+        }
+        return dead;
+    }
+
+    private boolean allOnGoals(int[] state) {
+        for (int i = 0; i < corralSize; i++) {
+            if (!space.goal[state[i]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long key(int[] state) {
+        long key = space.zobristPlayer[state[corralSize]];
+        for (int i = 0; i < corralSize; i++) {
+            key ^= space.zobristCrate[state[i]];
+        }
+        return key;
+    }
+
+    private void clear(int[] state) {
+        for (int i = 0; i < corralSize; i++) {
+            relaxed[state[i]] = false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.vladistic.sokoban.solver;
+
+/**
+ * Lower bound on the number of pushes still needed to solve a position.
+ * Implementations must never overestimate, otherwise the solver loses optimality.
+ */
+public interface Heuristic {
+    /** Estimate of a position that can never be solved. */
+    int UNSOLVABLE = Integer.MAX_VALUE;
+
+    /**
+     * @param crates The cells of all crates, in any order.
+     * @return A lower bound on the remaining pushes, or {@link #UNSOLVABLE}.
+     */
+    int estimate(int[] crates);
+
+    /**
+     * Called once per search thread. Stateless heuristics return themselves,
+     * heuristics caching the previous estimate return an independent instance.
+     * @return A heuristic the calling thread may use exclusively.
+     */
+    default Heuristic copy() {
+        return this;
+    }
+}
@@ -0,0 +1,205 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Next moves towards a solution from any position of one level. A position is
+ * solved once, and the next push of every position along the solution is cached,
+ * so following the hints costs one search. Positions are cached by crate placement
+ * and the area the player can reach, like the states of the {@link Solver}, which
+ * keeps a hint valid while the player only walks around. Positions without a
+ * solution within the node limit are cached as well.
+ * <p>
+ * Meant to run off the FX thread: the search stops with a {@link CancellationException}
+ * when the calling thread is interrupted. The cache may be shared between threads.
+ */
+public final class HintFinder {
+    public static final long DEFAULT_NODE_LIMIT = 1_000_000;
+    private static final int TABLE_BITS = 20;
+    private static final int MAX_CACHED = 100_000;
+
+    /** Cached push of a position, {@code push} is the crate cell times 4 plus the direction. */
+    private static final class Entry {
+        final int push;
+        final int pushesLeft;
+
+        Entry(int push, int pushesLeft) {
+            this.push = push;
+            this.pushesLeft = pushesLeft;
+        }
+    }
+
+    private static final Entry NONE = new Entry(-1, -1);
+
+    /**
+     * The next moves towards a solution.
+     */
+    public static final class Hint {
+        private final String moves;
+        private final int pushesLeft;
+
+        Hint(String moves, int pushesLeft) {
+            this.moves = moves;
+            this.pushesLeft = pushesLeft;
+        }
+
+        /**
+         * @return The walk to the next push and the push itself in LURD notation,
+         *         empty if the position is solved.
+         */
+        public String getMoves() { return moves; }
+
+        /**
+         * @return The pushes of the solution left after the hint has been played.
+         */
+        public int getPushesLeft() { return pushesLeft; }
+    }
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final long nodeLimit;
+
+    public HintFinder() {
+        this(DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * @param nodeLimit The nodes a single search may expand before the position counts as hopeless.
+     */
+    public HintFinder(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Finds the next moves from a position, searching only if it is not cached.
+     * @param board The position. It is not modified.
+     * @return The hint, or null if no solution was found from the position.
+     * @throws CancellationException If the calling thread is interrupted.
+     */
+    public Hint next(Board board) {
+        if (board.isSolved()) {
+            return new Hint("", 0);
+        }
+        Key key = new Key(board);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            entry = solve(board, key);
+        }
+        if (entry == NONE) {
+            return null;
+        }
+        int crate = entry.push >> 2;
+        int dir = entry.push & 3;
+        StringBuilder moves = new StringBuilder();
+        Board copy = board.copy();
+        PushPath.walk(copy, copy.neighbour(crate, Board.opposite(dir)), new int[copy.size()],
+                new int[copy.size()], moves);
+        moves.append(Board.toLurd(dir, true));
+        return new Hint(moves.toString(), entry.pushesLeft);
+    }
+
+    /**
+     * Solves the position and caches every position along the solution.
+     * @return The entry of the position itself.
+     */
+    private Entry solve(Board board, Key key) {
+        Solver solver = new Solver(Solver.Algorithm.A_STAR);
+        solver.setNodeLimit(nodeLimit);
+        solver.setTableBits(TABLE_BITS);
+        SolverResult result = solver.solve(board);
+        switch (result.getStatus()) {
+            case CANCELLED -> throw new CancellationException("Hint search cancelled");
+            case SOLVED -> { }
+            default -> {
+                remember(key, NONE);
+                return NONE;
+            }
+        }
+        String moves = result.getMoves();
+        int pushesLeft = result.getPushCount();
+        Board replay = board.copy();
+        Entry first = null;
+        Key at = key;
+        for (int i = 0; i < moves.length(); i++) {
+            int dir = Board.fromLurd(moves.charAt(i));
+            if (Character.isUpperCase(moves.charAt(i))) {
+                Entry entry = new Entry(replay.neighbour(replay.getPlayer(), dir) * 4 + dir, --pushesLeft);
+                remember(at, entry);
+                if (first == null) {
+                    first = entry;
+                }
+                replay.move(dir);
+                at = new Key(replay);
+            } else {
+                replay.move(dir);
+            }
+        }
+        return first;
+    }
+
+    private void remember(Key key, Entry entry) {
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        }
+        cache.put(key, entry);
+    }
+
+    /**
+     * Crate cells and the smallest cell the player can walk to.
+     */
+    private static final class Key {
+        private final int[] crates;
+        private final int region;
+        private final int hash;
+
+        Key(Board board) {
+            int count = 0;
+            for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+                count++;
+            }
+            crates = new int[count];
+            count = 0;
+            for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+                crates[count++] = pos;
+            }
+            region = smallestReachable(board);
+            hash = 31 * Arrays.hashCode(crates) + region;
+        }
+
+        private static int smallestReachable(Board board) {
+            boolean[] seen = new boolean[board.size()];
+            int[] queue = new int[board.size()];
+            int head = 0;
+            int tail = 0;
+            int smallest = board.getPlayer();
+            queue[tail++] = smallest;
+            seen[smallest] = true;
+            while (head < tail) {
+                int pos = queue[head++];
+                smallest = Math.min(smallest, pos);
+                for (int dir = 0; dir < 4; dir++) {
+                    int n = board.neighbour(pos, dir);
+                    if (n >= 0 && !seen[n] && board.isFree(n)) {
+                        seen[n] = true;
+                        queue[tail++] = n;
+                    }
+                }
+            }
+            return smallest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && region == other.region && Arrays.equals(crates, other.crates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
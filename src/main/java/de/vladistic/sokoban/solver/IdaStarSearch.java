@@ -0,0 +1,226 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+
+/**
+ * Iterative deepening A* over push states. Memory use is linear in the solution
+ * length apart from the fixed-size transposition table, which prunes states already
+ * searched with fewer pushes in the current iteration.
+ * <p>
+ * An instance holds the mutable state of one search thread. {@link #run(Board)}
+ * drives a sequential search; {@link ParallelIdaStarSearch} loads subtrees into
+ * one instance per task through {@link #load}.
+ */
+final class IdaStarSearch {
+    static final int FOUND = -1;
+    static final int EXPAND = -2;
+    static final int INFINITE = Integer.MAX_VALUE;
+
+    private final SearchSpace space;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+    private final SearchBudget budget;
+    private final SearchBudget.Counter counter;
+
+    private final boolean[] occupied;
+    private final Reachability reach;
+    private final DeadlockPruner pruner;
+    private int[] crates;
+    private int onGoals;
+    private int iteration = 0;
+    private int threshold;
+    private int solutionLength;
+    private int[] pathFrom = new int[64];
+    private int[] pathDir = new int[64];
+    private int[][] moves = new int[64][];
+
+    IdaStarSearch(SearchSpace space, Heuristic heuristic, TranspositionTable table, SearchBudget budget) {
+        this.space = space;
+        this.heuristic = heuristic.copy();
+        this.table = table;
+        this.budget = budget;
+        this.counter = budget.counter();
+        this.occupied = new boolean[space.size];
+        this.reach = new Reachability(space);
+        this.pruner = new DeadlockPruner(space);
+    }
+
+    SolverResult run(Board board) {
+        int[] start = SearchSpace.crates(board);
+        long hash = space.hashCrates(start);
+        int nextThreshold = heuristic.estimate(start);
+        if (nextThreshold == Heuristic.UNSOLVABLE) {
+            return budget.result(SolverResult.Status.UNSOLVABLE, null, 0);
+        }
+
+        while (true) {
+            load(start, pathFrom, pathDir, 0, iteration + 1, nextThreshold);
+            int result = search(board.getPlayer(), 0, hash);
+            counter.flush();
+            if (result == FOUND) {
+                return budget.result(SolverResult.Status.SOLVED,
+                        PushPath.toMoves(board, pathFrom, pathDir, solutionLength), solutionLength);
+            }
+            if (result == INFINITE || budget.stopped()) {
+                return budget.result(budget.stopStatus(), null, 0);
+            }
+            nextThreshold = result;
+        }
+    }
+
+    /**
+     * Sets up the position and iteration to search from.
+     * @param crates The crate cells, copied.
+     * @param from The crate cells of the pushes leading here.
+     * @param dirs The directions of the pushes leading here.
+     * @param depth The number of pushes leading here.
+     * @param iteration The IDA* iteration, used as transposition table stamp.
+     * @param threshold The f-value bound of the iteration.
+     */
+    void load(int[] crates, int[] from, int[] dirs, int depth, int iteration, int threshold) {
+        if (this.crates != null) {
+            for (int crate : this.crates) {
+                occupied[crate] = false;
+            }
+        }
+        this.crates = crates.clone();
+        for (int crate : this.crates) {
+            occupied[crate] = true;
+        }
+        onGoals = space.cratesOnGoals(this.crates);
+        ensureDepth(depth);
+        if (from != pathFrom) {
+            System.arraycopy(from, 0, pathFrom, 0, depth);
+            System.arraycopy(dirs, 0, pathDir, 0, depth);
+        }
+        this.iteration = iteration;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Depth-first search below the current position.
+     * @return FOUND, or the smallest f-value above the threshold met in this subtree.
+     */
+    int search(int player, int cost, long hash) {
+        int status = enter(player, cost, hash);
+        if (status != EXPAND) {
+            return status;
+        }
+
+        int count = generate(cost);
+        int[] buffer = moves[cost];
+        int min = INFINITE;
+        for (int m = 0; m < count; m++) {
+            int index = buffer[m] >> 2;
+            int dir = buffer[m] & 3;
+            int crate = crates[index];
+            int target = space.next[crate * 4 + dir];
+
+            crates[index] = target;
+            occupied[crate] = false;
+            occupied[target] = true;
+            onGoals += (space.goal[target] ? 1 : 0) - (space.goal[crate] ? 1 : 0);
+            pathFrom[cost] = crate;
+            pathDir[cost] = dir;
+
+            int result = search(crate, cost + 1, hash ^ space.zobristCrate[crate] ^ space.zobristCrate[target]);
+
+            onGoals -= (space.goal[target] ? 1 : 0) - (space.goal[crate] ? 1 : 0);
+            occupied[target] = false;
+            occupied[crate] = true;
+            crates[index] = crate;
+
+            if (result == FOUND) {
+                return FOUND;
+            }
+            if (budget.stopped()) {
+                return INFINITE;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Checks the current position before its pushes are generated.
+     * @return FOUND if solved, the f-value if above the threshold, INFINITE if already
+     *         visited, deadlocked or out of budget, otherwise EXPAND.
+     */
+    int enter(int player, int cost, long hash) {
+        if (onGoals == space.goals.length) {
+            solutionLength = cost;
+            return FOUND;
+        }
+        int estimate = heuristic.estimate(crates);
+        if (estimate == Heuristic.UNSOLVABLE) {
+            return INFINITE;
+        }
+        int f = cost + estimate;
+        if (f > threshold) {
+            return f;
+        }
+        int normalised = reach.flood(player, occupied);
+        if (!table.visit(hash ^ space.zobristPlayer[normalised], cost, iteration)) {
+            return INFINITE;
+        }
+        if (cost > 0 && pruner.isCorralDeadlock(reach, occupied, player,
+                space.next[pathFrom[cost - 1] * 4 + pathDir[cost - 1]])) {
+            return INFINITE;
+        }
+        if (!counter.expand()) {
+            return INFINITE;
+        }
+        return EXPAND;
+    }
+
+    /**
+     * Collects the legal pushes of the current position, using the reachability of
+     * the last flood fill. Pushes into dead squares or freeze deadlocks are left out. Each push is stored as crate index * 4 + direction.
+     * @return The number of pushes, available through {@link #moves(int)}.
+     */
+    int generate(int depth) {
+        ensureDepth(depth + 1);
+        if (moves[depth] == null) {
+            moves[depth] = new int[crates.length * 4];
+        }
+        int[] buffer = moves[depth];
+        int count = 0;
+        int[] next = space.next;
+        for (int i = 0; i < crates.length; i++) {
+            int crate = crates[i];
+            for (int dir = 0; dir < 4; dir++) {
+                int behind = next[crate * 4 + Board.opposite(dir)];
+                int target = next[crate * 4 + dir];
+                if (behind >= 0 && target >= 0 && !occupied[target] && reach.reached(behind)
+                        && !pruner.isDeadPush(occupied, crate, target)) {
+                    buffer[count++] = i * 4 + dir;
+                }
+            }
+        }
+        return count;
+    }
+
+    int[] moves(int depth) { return moves[depth]; }
+    int[] crates() { return crates; }
+    int[] pathFrom() { return pathFrom; }
+    int[] pathDir() { return pathDir; }
+    int solutionLength() { return solutionLength; }
+
+    /**
+     * Publishes the nodes counted by this instance.
+     */
+    void flush() {
+        counter.flush();
+    }
+
+    private void ensureDepth(int depth) {
+        if (depth >= moves.length) {
+            int length = Math.max(moves.length * 2, depth + 1);
+            moves = Arrays.copyOf(moves, length);
+            pathFrom = Arrays.copyOf(pathFrom, length);
+            pathDir = Arrays.copyOf(pathDir, length);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+
+/**
+ * Sums the Manhattan distance of every crate to its nearest goal. The distance
+ * per cell is precomputed, so an estimate costs one lookup per crate. With more
+ * crates than goals only the crates closest to a goal are counted, as the others
+ * never have to move.
+ */
+public class ManhattanHeuristic implements Heuristic {
+    private final int[] distance;
+    private final int goalCount;
+
+    public ManhattanHeuristic(Board board) {
+        distance = new int[board.size()];
+        goalCount = board.getGoalCount();
+        // Breadth-first from all goals at once, walls ignored, gives the distance to the nearest goal
+        int[] queue = new int[distance.length];
+        int tail = 0;
+        Arrays.fill(distance, -1);
+        for (int pos = 0; pos < distance.length; pos++) {
+            if (board.isGoal(pos)) {
+                distance[pos] = 0;
+                queue[tail++] = pos;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int pos = queue[head];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n >= 0 && distance[n] < 0) {
+                    distance[n] = distance[pos] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        if (tail == 0) {
+            Arrays.fill(distance, 0);
+        }
+    }
+
+    @Override
+    public int estimate(int[] crates) {
+        if (crates.length > goalCount) {
+            int[] sorted = new int[crates.length];
+            for (int i = 0; i < crates.length; i++) {
+                sorted[i] = distance[crates[i]];
+            }
+            Arrays.sort(sorted);
+            int sum = 0;
+            for (int i = 0; i < goalCount; i++) {
+                sum += sorted[i];
+            }
+            return sum;
+        }
+        int sum = 0;
+        for (int crate : crates) {
+            sum += distance[crate];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,246 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of crates to goals, where the cost of a pair is the
+ * number of pushes the crate needs to reach the goal on an otherwise empty board.
+ * Every crate has to end on its own goal and no push moves two crates, so the
+ * optimal assignment never overestimates. Surplus crates are matched to dummy
+ * goals at no cost.
+ * <p>
+ * The assignment is solved with the Hungarian algorithm in O(n^3) once, after
+ * that each estimate compares the crates with the previous call and only
+ * re-matches the crates that moved, in O(n^2) each. Searches call it with
+ * positions one or two pushes apart, so that is the common case.
+ * <p>
+ * The cached assignment makes instances stateful: every search thread works on
+ * its own {@link #copy()}.
+ */
+public class MatchingHeuristic implements Heuristic {
+    /** Cost of a crate that can never reach a goal, small enough to sum without overflow. */
+    private static final int UNREACHABLE = 1 << 20;
+    /** Above this many moved crates a full recomputation is cheaper than repairs. */
+    private static final int MAX_REPAIRS = 3;
+
+    /** distance[goal][cell] is the number of pushes from the cell to the goal. */
+    private final int[][] distance;
+    private final int goalCount;
+
+    private int n = -1;
+    private int[][] cost;
+    private int[] u;
+    private int[] v;
+    private int[] colRow;     // Column (1-based) to row (1-based), 0 if free
+    private int[] way;
+    private int[] minv;
+    private boolean[] used;
+    private int[] rowCell;    // Row (1-based) to crate cell
+    private int[] rowAt;      // Cell to row (1-based), valid only if rowCell agrees
+    private int[] seen;
+    private int epoch = 0;
+    private int[] added;
+    private int[] removed;
+
+    public MatchingHeuristic(Board board) {
+        int size = board.size();
+        int goals = 0;
+        for (int pos = 0; pos < size; pos++) {
+            if (board.isGoal(pos)) {
+                goals++;
+            }
+        }
+        goalCount = goals;
+        distance = new int[goals][];
+        int[] queue = new int[size];
+        for (int pos = 0, g = 0; pos < size; pos++) {
+            if (board.isGoal(pos)) {
+                distance[g++] = pullDistances(board, pos, queue);
+            }
+        }
+        rowAt = new int[size];
+    }
+
+    private MatchingHeuristic(MatchingHeuristic other) {
+        distance = other.distance;
+        goalCount = other.goalCount;
+        rowAt = new int[other.rowAt.length];
+    }
+
+    /**
+     * Reverse play from one goal: a crate can be pulled to a neighbour if the player
+     * has room to step back behind it.
+     */
+    private static int[] pullDistances(Board board, int goal, int[] queue) {
+        int[] dist = new int[board.size()];
+        Arrays.fill(dist, UNREACHABLE);
+        dist[goal] = 0;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int from = board.neighbour(pos, dir);
+                if (from < 0 || board.isWall(from) || dist[from] != UNREACHABLE) {
+                    continue;
+                }
+                int player = board.neighbour(from, dir);
+                if (player >= 0 && !board.isWall(player)) {
+                    dist[from] = dist[pos] + 1;
+                    queue[tail++] = from;
+                }
+            }
+        }
+        return dist;
+    }
+
+    @Override
+    public int estimate(int[] crates) {
+        if (crates.length < goalCount) {
+            return UNSOLVABLE;
+        }
+        if (crates.length != n || !repair(crates)) {
+            solve(crates);
+        }
+        int sum = 0;
+        for (int j = 1; j <= n; j++) {
+            sum += cost[colRow[j]][j];
+        }
+        return sum >= UNREACHABLE ? UNSOLVABLE : sum;
+    }
+
+    @Override
+    public Heuristic copy() {
+        return new MatchingHeuristic(this);
+    }
+
+    /**
+     * Matches every crate from scratch.
+     */
+    private void solve(int[] crates) {
+        if (crates.length != n) {
+            allocate(crates.length);
+        }
+        Arrays.fill(u, 0);
+        Arrays.fill(v, 0);
+        Arrays.fill(colRow, 0);
+        for (int i = 1; i <= n; i++) {
+            setRow(i, crates[i - 1]);
+            augment(i);
+        }
+    }
+
+    /**
+     * Re-matches only the crates that moved since the last call.
+     * @return false if too many crates moved, the caller then solves from scratch.
+     */
+    private boolean repair(int[] crates) {
+        if (++epoch == 0) {
+            Arrays.fill(seen, 0);
+            epoch = 1;
+        }
+        int addedCount = 0;
+        for (int crate : crates) {
+            int row = rowAt[crate];
+            if (row >= 1 && row <= n && rowCell[row] == crate && seen[row] != epoch) {
+                seen[row] = epoch;
+            } else if (addedCount == MAX_REPAIRS) {
+                return false;
+            } else {
+                added[addedCount++] = crate;
+            }
+        }
+        int removedCount = 0;
+        for (int i = 1; i <= n; i++) {
+            if (seen[i] != epoch) {
+                removed[removedCount++] = i;
+            }
+        }
+        // Free the moved rows first, every augmentation needs a free column
+        for (int k = 0; k < removedCount; k++) {
+            for (int j = 1; j <= n; j++) {
+                if (colRow[j] == removed[k]) {
+                    colRow[j] = 0;
+                    break;
+                }
+            }
+            setRow(removed[k], added[k]);
+        }
+        for (int k = 0; k < removedCount; k++) {
+            augment(removed[k]);
+        }
+        return true;
+    }
+
+    private void setRow(int row, int crate) {
+        rowCell[row] = crate;
+        rowAt[crate] = row;
+        int[] costs = cost[row];
+        for (int g = 0; g < goalCount; g++) {
+            costs[g + 1] = distance[g][crate];
+        }
+        // Columns beyond the goals are dummies for surplus crates and stay 0
+    }
+
+    /**
+     * Hungarian step: finds a shortest augmenting path for a free row and adjusts the
+     * potentials so all reduced costs stay non-negative.
+     */
+    private void augment(int row) {
+        colRow[0] = row;
+        int j0 = 0;
+        Arrays.fill(minv, Integer.MAX_VALUE);
+        Arrays.fill(used, false);
+        do {
+            used[j0] = true;
+            int i0 = colRow[j0];
+            int delta = Integer.MAX_VALUE;
+            int j1 = 0;
+            for (int j = 1; j <= n; j++) {
+                if (!used[j]) {
+                    int cur = cost[i0][j] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+            }
+            for (int j = 0; j <= n; j++) {
+                if (used[j]) {
+                    u[colRow[j]] += delta;
+                    v[j] -= delta;
+                } else {
+                    minv[j] -= delta;
+                }
+            }
+            j0 = j1;
+        } while (colRow[j0] != 0);
+        do {
+            int j1 = way[j0];
+            colRow[j0] = colRow[j1];
+            j0 = j1;
+        } while (j0 != 0);
+    }
+
+    private void allocate(int crates) {
+        n = crates;
+        cost = new int[n + 1][n + 1];
+        u = new int[n + 1];
+        v = new int[n + 1];
+        colRow = new int[n + 1];
+        way = new int[n + 1];
+        minv = new int[n + 1];
+        used = new boolean[n + 1];
+        rowCell = new int[n + 1];
+        seen = new int[n + 1];
+        added = new int[MAX_REPAIRS];
+        removed = new int[n];
+    }
+}
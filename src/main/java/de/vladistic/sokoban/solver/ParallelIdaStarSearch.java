@@ -0,0 +1,160 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * IDA* spread over a work-stealing {@link ForkJoinPool}. Each iteration starts as
+ * one task for the root; near the root, tasks fork one subtask per push as long
+ * as idle workers could steal them, deeper down they search sequentially. All
+ * workers share the lock-free transposition table.
+ * <p>
+ * A solution found in an iteration never exceeds that iteration's threshold, which
+ * is itself a lower bound on the optimum, so the result is push-optimal exactly
+ * like the sequential search.
+ */
+final class ParallelIdaStarSearch {
+    /** Subtrees below this depth are never split. */
+    private static final int MAX_SPLIT_DEPTH = 12;
+    /** Tasks keep splitting while fewer than this many are waiting to be stolen. */
+    private static final int SURPLUS_TASKS = 3;
+
+    private final SearchSpace space;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+    private final SearchBudget budget;
+    private final int parallelism;
+
+    private final AtomicReference<int[][]> solution = new AtomicReference<>();
+    private int iteration = 0;
+    private int threshold;
+
+    ParallelIdaStarSearch(SearchSpace space, Heuristic heuristic, TranspositionTable table, SearchBudget budget,
+                          int parallelism) {
+        this.space = space;
+        this.heuristic = heuristic;
+        this.table = table;
+        this.budget = budget;
+        this.parallelism = parallelism;
+    }
+
+    SolverResult run(Board board) {
+        int[] start = SearchSpace.crates(board);
+        long hash = space.hashCrates(start);
+        threshold = heuristic.copy().estimate(start);
+        if (threshold == Heuristic.UNSOLVABLE) {
+            return budget.result(SolverResult.Status.UNSOLVABLE, null, 0);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (true) {
+                iteration++;
+                int result;
+                try {
+                    result = pool.submit(new SubtreeTask(start, board.getPlayer(), 0, hash, new int[0], new int[0]))
+                            .get();
+                } catch (InterruptedException e) {
+                    budget.cancel();
+                    Thread.currentThread().interrupt();
+                    return budget.result(SolverResult.Status.CANCELLED, null, 0);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Parallel search failed", e.getCause());
+                }
+                int[][] path = solution.get();
+                if (path != null) {
+                    int pushes = path[0].length;
+                    return budget.result(SolverResult.Status.SOLVED,
+                            PushPath.toMoves(board, path[0], path[1], pushes), pushes);
+                }
+                if (result == IdaStarSearch.INFINITE || budget.stopped()) {
+                    return budget.result(budget.stopStatus(), null, 0);
+                }
+                threshold = result;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class SubtreeTask extends RecursiveTask<Integer> {
+        private final int[] crates;
+        private final int player;
+        private final int cost;
+        private final long hash;
+        private final int[] from;
+        private final int[] dirs;
+
+        SubtreeTask(int[] crates, int player, int cost, long hash, int[] from, int[] dirs) {
+            this.crates = crates;
+            this.player = player;
+            this.cost = cost;
+            this.hash = hash;
+            this.from = from;
+            this.dirs = dirs;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (budget.stopped()) {
+                return IdaStarSearch.INFINITE;
+            }
+            IdaStarSearch worker = new IdaStarSearch(space, heuristic, table, budget);
+            worker.load(crates, from, dirs, cost, iteration, threshold);
+            try {
+                if (cost >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() >= SURPLUS_TASKS) {
+                    return report(worker, worker.search(player, cost, hash));
+                }
+                int status = worker.enter(player, cost, hash);
+                if (status != IdaStarSearch.EXPAND) {
+                    return report(worker, status);
+                }
+                int count = worker.generate(cost);
+                int[] buffer = worker.moves(cost);
+                List<SubtreeTask> children = new ArrayList<>(count);
+                for (int m = 0; m < count; m++) {
+                    children.add(child(buffer[m] >> 2, buffer[m] & 3));
+                }
+                int min = IdaStarSearch.INFINITE;
+                for (SubtreeTask child : invokeAll(children)) {
+                    min = Math.min(min, child.join());
+                }
+                return min;
+            } finally {
+                worker.flush();
+            }
+        }
+
+        private SubtreeTask child(int index, int dir) {
+            int crate = crates[index];
+            int target = space.next[crate * 4 + dir];
+            int[] childCrates = crates.clone();
+            childCrates[index] = target;
+            int[] childFrom = Arrays.copyOf(from, cost + 1);
+            int[] childDirs = Arrays.copyOf(dirs, cost + 1);
+            childFrom[cost] = crate;
+            childDirs[cost] = dir;
+            return new SubtreeTask(childCrates, crate, cost + 1,
+                    hash ^ space.zobristCrate[crate] ^ space.zobristCrate[target], childFrom, childDirs);
+        }
+
+        private int report(IdaStarSearch worker, int result) {
+            if (result == IdaStarSearch.FOUND) {
+                int length = worker.solutionLength();
+                int[][] path = {Arrays.copyOf(worker.pathFrom(), length), Arrays.copyOf(worker.pathDir(), length)};
+                if (solution.compareAndSet(null, path)) {
+                    budget.stop(); // Let the other workers unwind
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+/**
+ * Turns a sequence of pushes into a full LURD move string by walking the player
+ * along a shortest path to each push.
+ */
+final class PushPath {
+
+    private PushPath() {
+    }
+
+    /**
+     * @param start The position the pushes start from. It is not modified.
+     * @param from The crate cell of every push.
+     * @param dirs The direction of every push.
+     * @param count The number of pushes.
+     * @return The moves in LURD notation.
+     * @throws IllegalStateException If the pushes cannot be replayed.
+     */
+    static String toMoves(Board start, int[] from, int[] dirs, int count) {
+        Board board = start.copy();
+        StringBuilder moves = new StringBuilder();
+        int[] parentDir = new int[board.size()];
+        int[] queue = new int[board.size()];
+        for (int i = 0; i < count; i++) {
+            int behind = board.neighbour(from[i], Board.opposite(dirs[i]));
+            if (behind < 0 || !walk(board, behind, parentDir, queue, moves)) {
+                throw new IllegalStateException("Push " + i + " is not reachable");
+            }
+            if (board.move(dirs[i]) != Board.PUSHED) {
+                throw new IllegalStateException("Push " + i + " is blocked");
+            }
+            moves.append(Board.toLurd(dirs[i], true));
+        }
+        return moves.toString();
+    }
+
+    /**
+     * Walks the player to the target along a shortest path and appends the steps.
+     * @return false if the target cannot be reached without pushing.
+     */
+    static boolean walk(Board board, int target, int[] parentDir, int[] queue, StringBuilder moves) {
+        int player = board.getPlayer();
+        if (player == target) {
+            return true;
+        }
+        java.util.Arrays.fill(parentDir, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = player;
+        parentDir[player] = 4;
+        while (head < tail && parentDir[target] < 0) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n >= 0 && parentDir[n] < 0 && board.isFree(n)) {
+                    parentDir[n] = dir;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        if (parentDir[target] < 0) {
+            return false;
+        }
+        // Collect the path backwards, then replay it forwards
+        int length = 0;
+        for (int pos = target; pos != player; pos = board.neighbour(pos, Board.opposite(parentDir[pos]))) {
+            queue[length++] = parentDir[pos];
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            board.move(queue[i]);
+            moves.append(Board.toLurd(queue[i], false));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,235 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Moves a single crate to a target cell with the fewest pushes, leaving every other
+ * crate where it is. The search runs breadth-first over states of crate cell and
+ * player side. Sides the player can walk between without pushing are one state,
+ * so the walks are never searched; which sides are connected is flooded once per
+ * crate cell and reused by every state on that cell. The walks between the pushes
+ * are filled in afterwards as shortest paths.
+ * <p>
+ * Meant to run off the FX thread: the planner stops with a {@link CancellationException}
+ * when the calling thread is interrupted.
+ */
+public final class PushPlanner {
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private final Board board;
+    private final int size;
+    private final boolean[] blocked;   // Walls and the other crates
+    private final byte[] sideGroup;    // Per crate cell and side: lowest side connected to it, -1 if blocked
+    private final boolean[] grouped;
+    private final int[] seen;
+    private final int[] queue;
+    private int epoch = 0;
+
+    private PushPlanner(Board board, int crate) {
+        this.board = board;
+        this.size = board.size();
+        this.blocked = new boolean[size];
+        for (int pos = 0; pos < size; pos++) {
+            blocked[pos] = board.isWall(pos) || (board.hasCrate(pos) && pos != crate);
+        }
+        this.sideGroup = new byte[size * 4];
+        this.grouped = new boolean[size];
+        this.seen = new int[size];
+        this.queue = new int[size];
+    }
+
+    /**
+     * Plans the pushes and walks that move one crate to a target cell.
+     * @param board The current position. It is not modified.
+     * @param crate The cell of the crate to move.
+     * @param target The cell the crate should end on.
+     * @return The steps in LURD notation, empty if the crate is already there, null if
+     *         the crate cannot get there without moving other crates.
+     * @throws CancellationException If the calling thread is interrupted.
+     */
+    public static String plan(Board board, int crate, int target) {
+        if (crate < 0 || crate >= board.size() || !board.hasCrate(crate)
+                || target < 0 || target >= board.size() || !board.isFree(target) && target != crate) {
+            return null;
+        }
+        if (crate == target) {
+            return "";
+        }
+        return new PushPlanner(board, crate).search(crate, target);
+    }
+
+    private String search(int crate, int target) {
+        int player = board.getPlayer();
+        int start = playerGroup(crate, player);
+        if (start < 0) {
+            return null;
+        }
+        int[] parent = new int[size * 4];
+        Arrays.fill(parent, -1);
+        int[] states = new int[size * 4];
+        int head = 0;
+        int tail = 0;
+        int first = crate * 4 + start;
+        parent[first] = first;
+        states[tail++] = first;
+        while (head < tail) {
+            if ((head & (CANCEL_CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Push planning cancelled");
+            }
+            int state = states[head++];
+            int cell = state >> 2;
+            int group = state & 3;
+            for (int dir = 0; dir < 4; dir++) {
+                // The player pushes from the opposite side, which must be in the current group
+                if (side(cell, Board.opposite(dir)) != group) {
+                    continue;
+                }
+                int next = board.neighbour(cell, dir);
+                if (next < 0 || blocked[next]) {
+                    continue;
+                }
+                int nextState = next * 4 + side(next, Board.opposite(dir));
+                if (parent[nextState] >= 0) {
+                    continue;
+                }
+                parent[nextState] = state;
+                if (next == target) {
+                    return moves(parent, first, nextState);
+                }
+                states[tail++] = nextState;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replays the chain of states back to the start as pushes and adds the walks.
+     */
+    private String moves(int[] parent, int first, int last) {
+        int count = 0;
+        for (int state = last; state != first; state = parent[state]) {
+            count++;
+        }
+        int[] from = new int[count];
+        int[] dirs = new int[count];
+        for (int state = last, i = count - 1; state != first; state = parent[state], i--) {
+            int before = parent[state] >> 2;
+            int after = state >> 2;
+            from[i] = before;
+            for (int dir = 0; dir < 4; dir++) {
+                if (board.neighbour(before, dir) == after) {
+                    dirs[i] = dir;
+                }
+            }
+        }
+        return PushPath.toMoves(board, from, dirs, count);
+    }
+
+    /**
+     * @return The group of the side of the crate cell, the lowest side index the player
+     *         can walk to from there, or -1 if the player cannot stand on that side.
+     */
+    private int side(int crate, int side) {
+        if (!grouped[crate]) {
+            groupSides(crate);
+        }
+        return sideGroup[crate * 4 + side];
+    }
+
+    /**
+     * Floods from each side of a crate cell in turn, stopping once every side is grouped.
+     */
+    private void groupSides(int crate) {
+        int base = crate * 4;
+        Arrays.fill(sideGroup, base, base + 4, (byte) -2);
+        for (int side = 0; side < 4; side++) {
+            if (sideGroup[base + side] != -2) {
+                continue;
+            }
+            int cell = board.neighbour(crate, side);
+            if (cell < 0 || blocked[cell]) {
+                sideGroup[base + side] = -1;
+                continue;
+            }
+            sideGroup[base + side] = (byte) side;
+            int open = 0;
+            for (int other = side + 1; other < 4; other++) {
+                if (sideGroup[base + other] == -2) {
+                    open++;
+                }
+            }
+            if (open > 0) {
+                flood(cell, crate, (byte) side, open);
+            }
+        }
+        grouped[crate] = true;
+    }
+
+    /**
+     * Marks the ungrouped sides of the crate reachable from a cell as the given group.
+     */
+    private void flood(int from, int crate, byte group, int open) {
+        int base = crate * 4;
+        nextEpoch();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        seen[from] = epoch;
+        seen[crate] = epoch;
+        while (head < tail && open > 0) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n < 0 || seen[n] == epoch || blocked[n]) {
+                    continue;
+                }
+                seen[n] = epoch;
+                queue[tail++] = n;
+                for (int side = 0; side < 4; side++) {
+                    if (sideGroup[base + side] == -2 && board.neighbour(crate, side) == n) {
+                        sideGroup[base + side] = group;
+                        open--;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The group of the side of the crate the player can walk to, -1 if none.
+     */
+    private int playerGroup(int crate, int player) {
+        nextEpoch();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = player;
+        seen[player] = epoch;
+        seen[crate] = epoch;
+        while (head < tail) {
+            int pos = queue[head++];
+            for (int side = 0; side < 4; side++) {
+                if (board.neighbour(crate, side) == pos) {
+                    return side(crate, side);
+                }
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.neighbour(pos, dir);
+                if (n >= 0 && seen[n] != epoch && !blocked[n]) {
+                    seen[n] = epoch;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(seen, 0);
+            epoch = 1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.vladistic.sokoban.solver;
+
+/**
+ * Flood fill of the cells the player can walk to without pushing. The marks are
+ * epoch-stamped, so a new fill costs nothing for the cells it does not touch.
+ * Not thread-safe, every search thread keeps its own instance.
+ */
+final class Reachability {
+    private final SearchSpace space;
+    private final int[] mark;
+    private final int[] queue;
+    private int epoch = 0;
+
+    Reachability(SearchSpace space) {
+        this.space = space;
+        this.mark = new int[space.size];
+        this.queue = new int[space.size];
+    }
+
+    /**
+     * Marks every cell reachable from the player.
+     * @param player The player cell.
+     * @param occupied The cells holding a crate.
+     * @return The smallest reachable cell index, used as normalised player position.
+     */
+    int flood(int player, boolean[] occupied) {
+        if (++epoch == 0) {
+            java.util.Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        int[] next = space.next;
+        int head = 0;
+        int tail = 0;
+        int min = player;
+        queue[tail++] = player;
+        mark[player] = epoch;
+        while (head < tail) {
+            int pos = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = next[pos * 4 + dir];
+                if (n >= 0 && mark[n] != epoch && !occupied[n]) {
+                    mark[n] = epoch;
+                    queue[tail++] = n;
+                    if (n < min) {
+                        min = n;
+                    }
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @param pos A cell index.
+     * @return true if the last {@link #flood} reached the cell.
+     */
+    boolean reached(int pos) {
+        return mark[pos] == epoch;
+    }
+}
@@ -0,0 +1,158 @@
+package de.vladistic.sokoban.solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts expanded nodes, enforces the node and memory limits, watches for
+ * interruption and samples the heap usage. Every search thread counts through its
+ * own {@link Counter}, which publishes to the shared total in batches, so the budget
+ * can be shared by parallel workers without contention.
+ * <p>
+ * Memory is measured as the bytes the search threads allocate, which bounds what
+ * the search can hold regardless of other threads of the process. Where the JVM
+ * cannot measure allocation per thread, only the node limit applies.
+ */
+final class SearchBudget {
+    private static final int BATCH = 4096;
+    /** Expansions between interrupt checks, fewer than a batch to stop hint searches promptly. */
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final long nodeLimit;
+    private final long memoryLimit;
+    private final long start = System.nanoTime();
+    private final long setupAllocStart = allocatedBytes();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong peakMemory = new AtomicLong();
+    private volatile boolean stopped = false;
+    private volatile boolean cancelled = false;
+    private volatile boolean outOfMemory = false;
+
+    /**
+     * @param nodeLimit The maximum number of expanded nodes.
+     * @param memoryLimit The maximum number of bytes the search may allocate, {@link Long#MAX_VALUE} for none.
+     */
+    SearchBudget(long nodeLimit, long memoryLimit) {
+        this.nodeLimit = nodeLimit;
+        this.memoryLimit = memoryLimit;
+        sampleMemory();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()
+                ? sun : null;
+    }
+
+    /**
+     * @return The bytes allocated so far by the calling thread, -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * Charges what the constructing thread allocated since the budget was created,
+     * the transposition table and heuristic, to the memory limit. Called once before the search starts.
+     */
+    void chargeSetup() {
+        if (setupAllocStart >= 0) {
+            charge(allocatedBytes() - setupAllocStart);
+        }
+    }
+
+    private void charge(long bytes) {
+        if (allocated.addAndGet(bytes) >= memoryLimit) {
+            outOfMemory = true;
+            stopped = true;
+        }
+    }
+
+    /**
+     * @return A new counter for the calling search thread.
+     */
+    Counter counter() {
+        return new Counter();
+    }
+
+    /**
+     * Stops all searches using this budget, e.g. because one of them found a solution.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Stops all searches and reports {@link SolverResult.Status#CANCELLED}.
+     */
+    void cancel() {
+        cancelled = true;
+        stopped = true;
+    }
+
+    boolean stopped() { return stopped; }
+    long nodes() { return nodes.get(); }
+
+    /**
+     * @return The status to report when the search stopped without a solution.
+     */
+    SolverResult.Status stopStatus() {
+        if (cancelled) {
+            return SolverResult.Status.CANCELLED;
+        }
+        return nodes.get() >= nodeLimit || outOfMemory ? SolverResult.Status.LIMIT_REACHED
+                : SolverResult.Status.UNSOLVABLE;
+    }
+
+    SolverResult result(SolverResult.Status status, String moves, int pushes) {
+        sampleMemory();
+        return new SolverResult(status, moves, pushes, nodes.get(), System.nanoTime() - start, peakMemory.get());
+    }
+
+    private void sampleMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        peakMemory.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+    }
+
+    /**
+     * Per-thread node counter.
+     */
+    final class Counter {
+        private long pending = 0;
+        /** Allocation of the thread using the counter, created on that thread, when last charged. */
+        private long allocMark = memoryLimit != Long.MAX_VALUE ? allocatedBytes() : -1;
+
+        /**
+         * Counts one expansion.
+         * @return false if the search has to stop.
+         */
+        boolean expand() {
+            if (++pending == BATCH) {
+                flush();
+            }
+            if ((pending & (CANCEL_CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+                cancel();
+            }
+            return !stopped;
+        }
+
+        /**
+         * Publishes the expansions counted so far to the shared total.
+         */
+        void flush() {
+            if (nodes.addAndGet(pending) >= nodeLimit) {
+                stopped = true;
+            }
+            pending = 0;
+            if (allocMark >= 0) {
+                long now = allocatedBytes();
+                charge(now - allocMark);
+                allocMark = now;
+            }
+            sampleMemory();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.DeadlockDetector;
+
+import java.util.SplittableRandom;
+
+/**
+ * Immutable per-level tables shared by all searches on the same level: the
+ * neighbour table without walls, the goal cells, the Zobrist keys and the
+ * dead squares. Safe to share between threads.
+ */
+final class SearchSpace {
+    private static final long ZOBRIST_SEED = 0x5EED_50C0_BA11L;
+
+    final int size;
+    final int cols;
+    /** next[pos * 4 + dir] is the neighbouring cell, or -1 for walls and the border. */
+    final int[] next;
+    final boolean[] goal;
+    final int[] goals;
+    final long[] zobristCrate;
+    final long[] zobristPlayer;
+    /** Template for the per-thread deadlock checks, null if not every crate needs a goal. */
+    final DeadlockDetector deadlocks;
+
+    SearchSpace(Board board) {
+        size = board.size();
+        cols = board.getCols();
+        next = new int[size * 4];
+        goal = new boolean[size];
+        int goalCount = 0;
+        for (int pos = 0; pos < size; pos++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int n = board.isWall(pos) ? -1 : board.neighbour(pos, dir);
+                next[pos * 4 + dir] = n >= 0 && !board.isWall(n) ? n : -1;
+            }
+            if (board.isGoal(pos)) {
+                goal[pos] = true;
+                goalCount++;
+            }
+        }
+        goals = new int[goalCount];
+        for (int pos = 0, i = 0; pos < size; pos++) {
+            if (goal[pos]) {
+                goals[i++] = pos;
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED);
+        zobristCrate = new long[size];
+        zobristPlayer = new long[size];
+        for (int pos = 0; pos < size; pos++) {
+            zobristCrate[pos] = random.nextLong();
+            zobristPlayer[pos] = random.nextLong();
+        }
+        deadlocks = crates(board).length == goalCount ? new DeadlockDetector(board) : null;
+    }
+
+    /**
+     * @param crates The crate cells.
+     * @return The Zobrist hash of the crate placement, without the player.
+     */
+    long hashCrates(int[] crates) {
+        long hash = 0;
+        for (int crate : crates) {
+            hash ^= zobristCrate[crate];
+        }
+        return hash;
+    }
+
+    /**
+     * @param crates The crate cells.
+     * @return The number of crates standing on a goal.
+     */
+    int cratesOnGoals(int[] crates) {
+        int count = 0;
+        for (int crate : crates) {
+            if (goal[crate]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param board A board on this level.
+     * @return The crate cells of the board in ascending order.
+     */
+    static int[] crates(Board board) {
+        int count = 0;
+        for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+            count++;
+        }
+        int[] crates = new int[count];
+        for (int pos = board.nextCrate(0), i = 0; pos >= 0; pos = board.nextCrate(pos + 1)) {
+            crates[i++] = pos;
+        }
+        return crates;
+    }
+}
@@ -0,0 +1,159 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.utils.LevelReader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Finds push-optimal solutions for a position. The search runs over push states
+ * (crate placement plus the player's reachable area, normalised to its smallest
+ * cell) identified by Zobrist keys in a bounded transposition table. The walks
+ * between pushes are shortest paths, so the move count is not necessarily minimal.
+ * <p>
+ * The sequential algorithms run on the calling thread, the parallel one on its own
+ * fork-join pool. Either way the solver stops with {@link SolverResult.Status#CANCELLED}
+ * when the calling thread is interrupted.
+ */
+public class Solver {
+
+    public enum Algorithm {
+        /** Best-first search, fast but keeps every open node in memory. */
+        A_STAR,
+        /** Iterative deepening, memory bounded by the transposition table. */
+        IDA_STAR,
+        /** Iterative deepening spread over all cores, with the same push-optimal results. */
+        PARALLEL_IDA_STAR
+    }
+
+    public static final long DEFAULT_NODE_LIMIT = 5_000_000;
+    public static final int DEFAULT_TABLE_BITS = 22;
+
+    private final Algorithm algorithm;
+    private long nodeLimit = DEFAULT_NODE_LIMIT;
+    private long memoryLimit = Long.MAX_VALUE;
+    private int tableBits = DEFAULT_TABLE_BITS;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Function<Board, Heuristic> heuristic = MatchingHeuristic::new;
+
+    public Solver() {
+        this(Algorithm.A_STAR);
+    }
+
+    public Solver(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Algorithm getAlgorithm() { return algorithm; }
+
+    /**
+     * @param nodeLimit The maximum number of expanded nodes before giving up.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Limits the bytes a search allocates, the transposition table included. The limit is
+     * checked in batches of expansions like the node limit and reached searches report
+     * {@link SolverResult.Status#LIMIT_REACHED}. Allocation bounds the memory the search holds;
+     * A* keeps almost everything it allocates, the iterative deepening searches mostly garbage,
+     * so they reach the limit early. Ignored where the JVM cannot measure allocation per thread.
+     * @param memoryLimit The maximum number of bytes, {@link Long#MAX_VALUE} for none, the default.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * @param tableBits The transposition table holds 2^tableBits entries of 16 bytes.
+     */
+    public void setTableBits(int tableBits) {
+        this.tableBits = tableBits;
+    }
+
+    /**
+     * @param parallelism The number of worker threads for {@link Algorithm#PARALLEL_IDA_STAR}.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param heuristic Creates the heuristic for the level being solved. It must be admissible.
+     *                  Defaults to {@link MatchingHeuristic}.
+     */
+    public void setHeuristic(Function<Board, Heuristic> heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Solves the position of the given board. The board is not modified.
+     * @param board The position to solve.
+     * @return The solution and search statistics.
+     */
+    public SolverResult solve(Board board) {
+        SearchSpace space = new SearchSpace(board);
+        SearchBudget budget = new SearchBudget(nodeLimit, memoryLimit);
+        int crates = SearchSpace.crates(board).length;
+        if (crates < space.goals.length) {
+            return budget.result(SolverResult.Status.UNSOLVABLE, null, 0);
+        }
+        TranspositionTable table = new TranspositionTable(tableBits);
+        Heuristic h = heuristic.apply(board);
+        budget.chargeSetup();
+        return switch (algorithm) {
+            case A_STAR -> new AStarSearch(space, h, table, budget).run(board);
+            case IDA_STAR -> new IdaStarSearch(space, h, table, budget).run(board);
+            case PARALLEL_IDA_STAR -> new ParallelIdaStarSearch(space, h, table, budget, parallelism).run(board);
+        };
+    }
+
+    /**
+     * @param level The level to solve from its starting position.
+     * @return The solution and search statistics.
+     */
+    public SolverResult solve(Level level) {
+        return solve(level.toBoard());
+    }
+
+    /**
+     * Solves every level of a pack and prints the result per level.
+     * @param args The path of the pack, optionally followed by "astar", "idastar" or "parallel"
+     *             and "manhattan" to use the simpler heuristic.
+     * @throws IOException If the pack cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Solver <pack> [astar|idastar|parallel] [manhattan]");
+            System.exit(2);
+        }
+        Algorithm algorithm = Algorithm.A_STAR;
+        if (args.length > 1 && args[1].equalsIgnoreCase("idastar")) {
+            algorithm = Algorithm.IDA_STAR;
+        } else if (args.length > 1 && args[1].equalsIgnoreCase("parallel")) {
+            algorithm = Algorithm.PARALLEL_IDA_STAR;
+        }
+        Solver solver = new Solver(algorithm);
+        if (args.length > 2 && args[2].equalsIgnoreCase("manhattan")) {
+            solver.setHeuristic(ManhattanHeuristic::new);
+        }
+        try (LevelReader reader = new LevelReader(new FileInputStream(args[0]))) {
+            Level level;
+            int number = 1;
+            while ((level = reader.read()) != null) {
+                SolverResult result = solver.solve(level);
+                System.out.println("Level " + number++ + ": " + result);
+                if (result.isSolved()) {
+                    System.out.println("  " + result.getMoves());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.vladistic.sokoban.solver;
+
+/**
+ * Outcome of a {@link Solver} run: the solution in LURD notation, if one was found,
+ * and statistics about the search.
+ */
+public final class SolverResult {
+
+    public enum Status {
+        /** A solution with the minimum number of pushes was found. */
+        SOLVED,
+        /** The search space was exhausted without a solution. */
+        UNSOLVABLE,
+        /** The node limit was hit before the search finished. */
+        LIMIT_REACHED,
+        /** The solving thread was interrupted. */
+        CANCELLED
+    }
+
+    private final Status status;
+    private final String moves;
+    private final int pushes;
+    private final long nodesExpanded;
+    private final long elapsedNanos;
+    private final long peakMemoryBytes;
+
+    SolverResult(Status status, String moves, int pushes, long nodesExpanded, long elapsedNanos,
+                 long peakMemoryBytes) {
+        this.status = status;
+        this.moves = moves;
+        this.pushes = pushes;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedNanos = elapsedNanos;
+        this.peakMemoryBytes = peakMemoryBytes;
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isSolved() { return status == Status.SOLVED; }
+
+    /**
+     * @return The solution in LURD notation (uppercase letters are pushes), or null if unsolved.
+     */
+    public String getMoves() { return moves; }
+    public int getMoveCount() { return moves != null ? moves.length() : -1; }
+    public int getPushCount() { return pushes; }
+    public long getNodesExpanded() { return nodesExpanded; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * @return The highest heap usage sampled during the search, in bytes.
+     */
+    public long getPeakMemoryBytes() { return peakMemoryBytes; }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos > 0 ? nodesExpanded * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s moves=%d pushes=%d nodes=%d time=%.3fs nodes/s=%.0f peak=%dMB",
+                status, getMoveCount(), pushes, nodesExpanded, elapsedNanos / 1e9,
+                getNodesPerSecond(), peakMemoryBytes >> 20);
+    }
+}
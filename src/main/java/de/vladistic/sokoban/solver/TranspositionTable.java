@@ -0,0 +1,74 @@
+package de.vladistic.sokoban.solver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, direct-mapped table of visited push states keyed by their Zobrist hash.
+ * A colliding entry simply replaces the old one, so memory never grows beyond the
+ * size chosen up front; a lost entry only costs a repeated expansion.
+ * <p>
+ * The table is lock-free and may be shared by parallel searches: each slot stores
+ * the data word and the key XOR-ed with it. A slot torn by two concurrent writers
+ * fails that check and counts as empty.
+ */
+final class TranspositionTable {
+    private final AtomicLongArray keys;
+    private final AtomicLongArray data;
+    private final int mask;
+
+    /**
+     * @param bits The table holds 2^bits entries.
+     */
+    TranspositionTable(int bits) {
+        if (bits < 4 || bits > 30) {
+            throw new IllegalArgumentException("Table bits must be between 4 and 30");
+        }
+        keys = new AtomicLongArray(1 << bits);
+        data = new AtomicLongArray(1 << bits);
+        mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Records that a state was reached with the given number of pushes.
+     * @param key The Zobrist key of the state.
+     * @param cost The number of pushes to reach it.
+     * @param stamp Entries with a different stamp count as absent, IDA* passes its iteration.
+     * @return true if the state is new or was reached more cheaply than before.
+     */
+    boolean visit(long key, int cost, int stamp) {
+        int slot = slot(key);
+        long stored = data.getOpaque(slot);
+        if ((keys.getOpaque(slot) ^ stored) == key && (int) stored == stamp && (int) (stored >>> 32) <= cost) {
+            return false;
+        }
+        long entry = ((long) cost << 32) | (stamp & 0xFFFFFFFFL);
+        data.setOpaque(slot, entry);
+        keys.setOpaque(slot, key ^ entry);
+        return true;
+    }
+
+    /**
+     * @param key The Zobrist key of a state.
+     * @param stamp The stamp the entry must carry.
+     * @return The cheapest known cost of the state, or -1 if it is not in the table.
+     */
+    int cost(long key, int stamp) {
+        int slot = slot(key);
+        long stored = data.getOpaque(slot);
+        if ((keys.getOpaque(slot) ^ stored) == key && (int) stored == stamp) {
+            return (int) (stored >>> 32);
+        }
+        return -1;
+    }
+
+    /**
+     * @return The approximate heap size of the table in bytes.
+     */
+    long bytes() {
+        return keys.length() * 16L;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
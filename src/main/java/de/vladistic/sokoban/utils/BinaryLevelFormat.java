@@ -0,0 +1,340 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary level packs. A pack starts with a header and a table of level
+ * offsets, so {@link LevelCatalog} opens it without scanning and decodes single
+ * levels from a memory-mapped file. Each level is written as its dimensions and
+ * crate count, followed by one 3-bit symbol per cell; spans of 4 or more walls,
+ * which make up most of the area outside a level, are a single symbol with an
+ * 8-bit length. Cells are decoded straight into the arrays of a {@link Level},
+ * which takes them over without a copy; the symbols are read from a 64-bit window
+ * refilled with one read per seven bytes, and no text or per-cell objects are involved.
+ * <pre>
+ * int magic "SKLV", int version, int level count, int offset per level
+ * per level: varint cols, varint rows, varint crates, symbols padded to a byte
+ * </pre>
+ * Offsets are ints, so a pack is limited to 2 GB, the size of a single mapping.
+ * <p>
+ * Text packs are converted with
+ * <pre>
+ * java de.vladistic.sokoban.utils.BinaryLevelFormat &lt;pack&gt; &lt;binary pack&gt;
+ * </pre>
+ */
+public class BinaryLevelFormat {
+    static final int MAGIC = 0x534B4C56; // "SKLV"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_SIZE = 1 << 15;
+
+    private static final int FLOOR = 0;
+    private static final int WALL = 1;
+    private static final int GOAL = 2;
+    private static final int CRATE = 3;
+    private static final int CRATE_ON_GOAL = 4;
+    private static final int PLAYER = 5;
+    private static final int PLAYER_ON_GOAL = 6;
+    private static final int WALL_RUN = 7;
+    private static final int SYMBOL_BITS = 3;
+    private static final int RUN_BITS = 8;
+    /** Shorter wall spans are cheaper as single symbols. */
+    private static final int MIN_RUN = 4;
+    private static final int MAX_RUN = MIN_RUN + (1 << RUN_BITS) - 1;
+    /** Static cell type per symbol. */
+    private static final byte[] CELLS = {Board.FLOOR, Board.WALL, Board.GOAL, Board.FLOOR, Board.GOAL,
+            Board.FLOOR, Board.GOAL, Board.WALL};
+
+    private BinaryLevelFormat() {
+    }
+
+    /**
+     * Writes a binary pack.
+     * @param levels The levels in pack order.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public static void write(List<Level> levels, OutputStream out) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] offsets = new int[levels.size()];
+        int start = HEADER_SIZE + 4 * levels.size();
+        for (int i = 0; i < levels.size(); i++) {
+            offsets[i] = start + body.size();
+            encode(levels.get(i), body);
+            if (start + (long) body.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary pack exceeds 2 GB");
+            }
+        }
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(offsets.length);
+        for (int offset : offsets) {
+            data.writeInt(offset);
+        }
+        body.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Appends one level record.
+     */
+    static void encode(Level level, ByteArrayOutputStream out) {
+        writeVarint(out, level.getCols());
+        writeVarint(out, level.getRows());
+        writeVarint(out, level.getCrateCount());
+        boolean[] crate = new boolean[level.size()];
+        for (int i = 0; i < level.getCrateCount(); i++) {
+            crate[level.getCrate(i)] = true;
+        }
+        BitWriter bits = new BitWriter(out);
+        int size = level.size();
+        for (int pos = 0; pos < size; ) {
+            byte cell = level.cellAt(pos);
+            if (cell == Board.WALL) {
+                int run = 1;
+                while (run < MAX_RUN && pos + run < size && level.cellAt(pos + run) == Board.WALL) {
+                    run++;
+                }
+                if (run >= MIN_RUN) {
+                    bits.write(WALL_RUN, SYMBOL_BITS);
+                    bits.write(run - MIN_RUN, RUN_BITS);
+                    pos += run;
+                    continue;
+                }
+            }
+            boolean goal = cell == Board.GOAL;
+            int symbol;
+            if (pos == level.getPlayer()) {
+                symbol = goal ? PLAYER_ON_GOAL : PLAYER;
+            } else if (crate[pos]) {
+                symbol = goal ? CRATE_ON_GOAL : CRATE;
+            } else {
+                symbol = goal ? GOAL : cell == Board.WALL ? WALL : FLOOR;
+            }
+            bits.write(symbol, SYMBOL_BITS);
+            pos++;
+        }
+        bits.flush();
+    }
+
+    /**
+     * @param buffer The start of a pack.
+     * @return true if the buffer holds a binary pack.
+     */
+    static boolean isBinary(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Reads the offset table of a binary pack.
+     * @param buffer The whole pack.
+     * @return The byte offset of every level.
+     * @throws IOException If the header is invalid.
+     */
+    static long[] offsets(ByteBuffer buffer) throws IOException {
+        if (!isBinary(buffer) || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a binary level pack of version " + VERSION);
+        }
+        int count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + 4L * count > buffer.limit()) {
+            throw new IOException("Truncated level table");
+        }
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = buffer.getInt(HEADER_SIZE + 4 * i);
+        }
+        return offsets;
+    }
+
+    /**
+     * Decodes one level record.
+     * @param buffer The whole pack, its position is not changed.
+     * @param offset The byte offset of the record.
+     * @return The level.
+     * @throws IOException If the record is malformed.
+     */
+    static Level decode(ByteBuffer buffer, int offset) throws IOException {
+        HeaderReader in = new HeaderReader(buffer, offset);
+        int cols = in.varint();
+        int rows = in.varint();
+        int crateCount = in.varint();
+        if (cols <= 0 || rows <= 0 || cols > MAX_SIZE || rows > MAX_SIZE
+                || crateCount < 0 || crateCount > rows * cols) {
+            throw new IOException("Invalid level header at offset " + offset);
+        }
+        int size = rows * cols;
+        byte[] cells = new byte[size];
+        int[] crates = new int[crateCount];
+        int crate = 0;
+        int player = -1;
+        int limit = buffer.limit();
+        int next = in.position;
+        long window = 0;    // Unread bits, most significant first
+        int available = 0;  // Valid bits at the top of the window
+        for (int pos = 0; pos < size; ) {
+            if (available < SYMBOL_BITS + RUN_BITS) {
+                if (next + 8 <= limit) {
+                    // The bits below the counted bytes are read again, unchanged, by the next refill
+                    window |= buffer.getLong(next) >>> available;
+                    int bytes = (63 - available) >>> 3;
+                    next += bytes;
+                    available += bytes << 3;
+                } else {
+                    while (available <= 56 && next < limit) {
+                        window |= (buffer.get(next++) & 0xFFL) << (56 - available);
+                        available += 8;
+                    }
+                }
+                if (available < SYMBOL_BITS) {
+                    throw new IOException("Unexpected end of level data at offset " + offset);
+                }
+            }
+            int symbol = (int) (window >>> (64 - SYMBOL_BITS));
+            window <<= SYMBOL_BITS;
+            available -= SYMBOL_BITS;
+            switch (symbol) {
+                case WALL_RUN -> {
+                    if (available < RUN_BITS) {
+                        throw new IOException("Unexpected end of level data at offset " + offset);
+                    }
+                    int run = (int) (window >>> (64 - RUN_BITS)) + MIN_RUN;
+                    window <<= RUN_BITS;
+                    available -= RUN_BITS;
+                    if (pos + run > size) {
+                        throw new IOException("Wall span beyond the level at offset " + offset);
+                    }
+                    Arrays.fill(cells, pos, pos + run, Board.WALL);
+                    pos += run;
+                    continue;
+                }
+                case CRATE, CRATE_ON_GOAL -> {
+                    if (crate == crateCount) {
+                        throw new IOException("More crates than declared at offset " + offset);
+                    }
+                    crates[crate++] = pos;
+                }
+                case PLAYER, PLAYER_ON_GOAL -> {
+                    if (player >= 0) {
+                        throw new IOException("Second player at offset " + offset);
+                    }
+                    player = pos;
+                }
+                default -> { }
+            }
+            cells[pos++] = CELLS[symbol];
+        }
+        if (crate != crateCount || player < 0) {
+            throw new IOException("Missing crates or player at offset " + offset);
+        }
+        return Level.adopt(rows, cols, cells, crates, player);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Packs values most significant bit first.
+     */
+    private static final class BitWriter {
+        private final ByteArrayOutputStream out;
+        private int pending = 0;
+        private int count = 0;
+
+        BitWriter(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        void write(int value, int bits) {
+            pending = (pending << bits) | value;
+            count += bits;
+            while (count >= 8) {
+                count -= 8;
+                out.write(pending >>> count);
+            }
+            pending &= (1 << count) - 1;
+        }
+
+        void flush() {
+            if (count > 0) {
+                out.write(pending << (8 - count));
+                count = 0;
+                pending = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the varints of a record header with absolute gets, so one buffer can be shared.
+     */
+    private static final class HeaderReader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        HeaderReader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= buffer.limit()) {
+                    throw new IOException("Unexpected end of level data");
+                }
+                int b = buffer.get(position++) & 0xFF;
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed number at offset " + position);
+        }
+    }
+
+    /**
+     * Converts a text pack into a binary pack.
+     * @param args The path of the text pack and of the binary pack to write.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryLevelFormat <pack> <binary pack>");
+            System.exit(2);
+        }
+        List<Level> levels = new ArrayList<>();
+        try (LevelReader reader = new LevelReader(new FileInputStream(args[0]))) {
+            Level level;
+            while ((level = reader.read()) != null) {
+                levels.add(level);
+            }
+        }
+        Path target = Path.of(args[1]);
+        try (OutputStream out = Files.newOutputStream(target)) {
+            write(levels, out);
+        }
+        long textSize = Files.size(Path.of(args[0]));
+        long binarySize = Files.size(target);
+        System.out.printf("%d levels, %d bytes as text, %d bytes binary (%.1f%%)%n",
+                levels.size(), textSize, binarySize, textSize > 0 ? 100.0 * binarySize / textSize : 0.0);
+    }
+}
@@ -0,0 +1,389 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.events.LevelParseEvent;
+import de.vladistic.sokoban.events.PackOpenEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Random access to the levels of a pack without parsing them up front.
+ * Opening a catalog only records the byte offset at which every level starts,
+ * either by one fast scan over the raw bytes or by reading a persisted index
+ * sidecar. A level is parsed by {@link LevelReader} when {@link #get(int)} asks for it.
+ * <p>
+ * Packs on the file system are memory-mapped; packs inside a jar or jlink image
+ * are read as classpath streams.
+ * <p>
+ * Binary packs written by {@link BinaryLevelFormat} are recognised by their header.
+ * They carry their own offset table and are decoded without {@link LevelReader};
+ * inside a jar they are small enough to be read into memory as a whole.
+ */
+public class LevelCatalog {
+    private static final int INDEX_MAGIC = 0x534B4958; // "SKIX"
+    private static final int INDEX_VERSION = 1;
+
+    private final URL source;
+    private final ByteBuffer mapped;
+    private final long length;
+    private final long[] offsets;
+    private final boolean binary;
+
+    private LevelCatalog(URL source, ByteBuffer mapped, long length, long[] offsets, boolean binary) {
+        this.source = source;
+        this.mapped = mapped;
+        this.length = length;
+        this.offsets = offsets;
+        this.binary = binary;
+    }
+
+    /**
+     * Opens a level pack.
+     * @param pack The URL of the pack, usually a classpath resource.
+     * @param index The URL of a sidecar written by {@link #writeIndex(OutputStream)}, or null.
+     *              A sidecar is ignored if it does not match the pack's length, if the
+     *              length of a streamed pack is unknown, if its offsets are out of order
+     *              or beyond the end of the pack, and for binary packs.
+     * @return The catalog.
+     * @throws IOException If the pack cannot be read.
+     */
+    public static LevelCatalog open(URL pack, URL index) throws IOException {
+        PackOpenEvent event = PackOpenEvent.enabled() ? new PackOpenEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        LevelCatalog catalog;
+        boolean indexed = false;
+        ByteBuffer mapped = map(pack);
+        if (mapped == null) {
+            mapped = readBinary(pack);
+        }
+        if (mapped != null && BinaryLevelFormat.isBinary(mapped)) {
+            catalog = new LevelCatalog(pack, mapped, mapped.limit(), BinaryLevelFormat.offsets(mapped), true);
+        } else {
+            long length = mapped != null ? mapped.limit() : contentLength(pack);
+            long[] offsets = index != null && length >= 0 ? readIndex(index, length, mapped) : null;
+            indexed = offsets != null;
+            if (offsets == null) {
+                offsets = mapped != null ? scan(mapped) : scan(pack);
+            }
+            catalog = new LevelCatalog(pack, mapped, length, offsets, false);
+        }
+        if (event != null) {
+            event.pack = pack.toString();
+            event.levels = catalog.size();
+            event.binary = catalog.binary;
+            event.indexed = indexed;
+            event.bytes = catalog.length;
+            event.commit();
+        }
+        return catalog;
+    }
+
+    /**
+     * @return The number of levels in the pack.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Parses a single level.
+     * @param index The zero-based position of the level in the pack.
+     * @return The parsed level.
+     * @throws IOException If the pack cannot be read or the level is malformed.
+     */
+    public Level get(int index) throws IOException {
+        if (index < 0 || index >= offsets.length) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + offsets.length);
+        }
+        LevelParseEvent event = LevelParseEvent.enabled() ? new LevelParseEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        Level level;
+        if (binary) {
+            level = BinaryLevelFormat.decode(mapped, (int) offsets[index]);
+        } else {
+            try (LevelReader reader = new LevelReader(open(offsets[index]))) {
+                level = reader.read();
+            }
+            if (level == null) {
+                throw new IOException("No level at offset " + offsets[index]);
+            }
+        }
+        if (event != null) {
+            LevelReader.describe(event, level, binary ? "binary" : "text", index);
+            event.commit();
+        }
+        return level;
+    }
+
+    /**
+     * Writes the level offsets as an index sidecar so later opens can skip the scan.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeIndex(OutputStream out) throws IOException {
+        if (binary) {
+            throw new IllegalStateException("Binary packs have their own index");
+        }
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(INDEX_MAGIC);
+        data.writeInt(INDEX_VERSION);
+        data.writeLong(length);
+        data.writeInt(offsets.length);
+        for (long offset : offsets) {
+            data.writeLong(offset);
+        }
+        data.flush();
+    }
+
+    /**
+     * Writes an index sidecar next to a pack on disk, e.g. levels.txt.idx for levels.txt.
+     * @param args The path of the pack.
+     * @throws IOException If the pack cannot be read or the sidecar cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: LevelCatalog <pack>");
+            System.exit(2);
+        }
+        Path pack = Path.of(args[0]);
+        LevelCatalog catalog = open(pack.toUri().toURL(), null);
+        try (OutputStream out = Files.newOutputStream(pack.resolveSibling(pack.getFileName() + ".idx"))) {
+            catalog.writeIndex(out);
+        }
+        System.out.println(catalog.size() + " levels indexed");
+    }
+
+    private InputStream open(long offset) throws IOException {
+        if (mapped != null) {
+            ByteBuffer slice = mapped.duplicate().position((int) offset);
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return slice.hasRemaining() ? slice.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (!slice.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, slice.remaining());
+                    slice.get(b, off, n);
+                    return n;
+                }
+            };
+        }
+        InputStream in = source.openStream();
+        in.skipNBytes(offset);
+        return in;
+    }
+
+    private static ByteBuffer map(URL pack) throws IOException {
+        if (!"file".equals(pack.getProtocol())) {
+            return null;
+        }
+        Path path;
+        try {
+            path = Path.of(pack.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null; // Too large for a single mapping, fall back to streaming
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return buffer; // The mapping stays valid after the channel is closed
+        }
+    }
+
+    /**
+     * Reads a pack that cannot be mapped into memory if it is a binary pack.
+     * @return The whole pack, or null for text packs, which are streamed instead.
+     */
+    private static ByteBuffer readBinary(URL pack) throws IOException {
+        try (InputStream in = pack.openStream()) {
+            byte[] magic = in.readNBytes(4);
+            if (magic.length < 4 || ByteBuffer.wrap(magic).getInt() != BinaryLevelFormat.MAGIC) {
+                return null;
+            }
+            byte[] rest = in.readAllBytes();
+            return ByteBuffer.allocate(4 + rest.length).put(magic).put(rest).flip();
+        }
+    }
+
+    /**
+     * @return The length of a pack that is not mapped, e.g. a jar entry, -1 if it is unknown.
+     */
+    private static long contentLength(URL pack) throws IOException {
+        URLConnection connection = pack.openConnection();
+        connection.setUseCaches(false); // A cached jar file would stay open
+        long length = connection.getContentLengthLong();
+        connection.getInputStream().close();
+        return length;
+    }
+
+    /**
+     * Reads a sidecar and checks it against the pack.
+     * @param packLength The length of the pack in bytes.
+     * @param mapped The mapped pack, or null if it is streamed.
+     * @return The offsets, or null if the sidecar is invalid or stale.
+     */
+    private static long[] readIndex(URL index, long packLength, ByteBuffer mapped) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(index.openStream()))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            long indexedLength = in.readLong();
+            int count = in.readInt();
+            if (indexedLength != packLength || count < 0 || count > packLength) {
+                return null; // Stale sidecar
+            }
+            long[] offsets = new long[count];
+            long previous = -1;
+            for (int i = 0; i < offsets.length; i++) {
+                long offset = in.readLong();
+                if (offset <= previous || offset >= packLength || (mapped != null && !startsLevel(mapped, offset))) {
+                    return null;
+                }
+                offsets[i] = offset;
+                previous = offset;
+            }
+            return offsets;
+        } catch (EOFException e) {
+            return null; // Truncated sidecar
+        }
+    }
+
+    /**
+     * @return true if a line starting at the offset can start a level in either notation.
+     */
+    private static boolean startsLevel(ByteBuffer mapped, long offset) {
+        if (offset > 0 && mapped.get((int) offset - 1) != '\n') {
+            return false;
+        }
+        return switch (mapped.get((int) offset)) {
+            case '+', '#', ' ', '-', '_', '@', '$', '*', '.', '\t' -> true;
+            default -> false;
+        };
+    }
+
+    private static long[] scan(ByteBuffer buffer) {
+        Scanner scanner = new Scanner();
+        for (int i = 0, n = buffer.limit(); i < n; i++) {
+            scanner.accept(buffer.get(i), i);
+        }
+        return scanner.finish();
+    }
+
+    private static long[] scan(URL pack) throws IOException {
+        Scanner scanner = new Scanner();
+        byte[] chunk = new byte[64 * 1024];
+        long offset = 0;
+        try (InputStream in = pack.openStream()) {
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    scanner.accept(chunk[i], offset + i);
+                }
+                offset += n;
+            }
+        }
+        return scanner.finish();
+    }
+
+    /**
+     * Finds level starts byte by byte using the same rules as {@link LevelReader},
+     * without building strings for the lines.
+     */
+    private static final class Scanner {
+        private long[] offsets = new long[64];
+        private int count = 0;
+        private boolean inNative = false;
+        private boolean previousXsb = false;
+
+        private long lineStart = 0;
+        private int lineLength = 0;
+        private int plus = 0;
+        private int minus = 0;
+        private boolean xsbChars = true;
+        private boolean wall = false;
+
+        void accept(byte b, long offset) {
+            switch (b) {
+                case '\n' -> {
+                    endLine();
+                    lineStart = offset + 1;
+                    return;
+                }
+                case '\r' -> {
+                    return;
+                }
+                case '+' -> plus++;
+                case '-' -> minus++;
+                case '#' -> wall = true;
+                case ' ', '_', '@', '$', '*', '.', '\t' -> { }
+                default -> xsbChars = false;
+            }
+            lineLength++;
+        }
+
+        long[] finish() {
+            if (lineLength > 0) {
+                endLine();
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+
+        private void endLine() {
+            boolean start = lineLength == 3 && plus == 3;
+            boolean end = lineLength == 3 && minus == 3;
+            boolean xsb = xsbChars && wall;
+            if (inNative) {
+                inNative = !end;
+            } else if (start) {
+                add(lineStart);
+                inNative = true;
+                previousXsb = false;
+            } else {
+                if (xsb && !previousXsb) {
+                    add(lineStart);
+                }
+                previousXsb = xsb;
+            }
+            lineLength = 0;
+            plus = 0;
+            minus = 0;
+            xsbChars = true;
+            wall = false;
+        }
+
+        private void add(long offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.events.LevelParseEvent;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader for level packs. Levels are parsed one at a time straight into
+ * {@link Level} objects, so a pack of any size can be read while only the current
+ * level is held in memory.
+ * <p>
+ * Two notations are understood and may be mixed within one file:
+ * <ul>
+ *     <li>The native format: a level starts with a line {@code +++}, followed by the
+ *     dimensions ({@code 16x10}), the player position ({@code row,col}) and the map
+ *     rows using 'w' for walls, 'g' for ground, 'c' for crates and '*' for goals.
+ *     The level ends with a line {@code ---}.</li>
+ *     <li>The standard XSB/SOK notation: consecutive lines made of {@code # @ + $ * .}
+ *     plus space, '-' or '_' for floor form one level. Any other line (titles,
+ *     comments, blank lines) separates levels.</li>
+ * </ul>
+ */
+public class LevelReader implements Closeable {
+    private static final String START_MARKER = "+++";
+    private static final String END_MARKER = "---";
+    /** Largest number of rows or columns of a native level, as in {@link BinaryLevelFormat}. */
+    private static final int MAX_SIDE = 1 << 15;
+    /** Largest number of cells of a native level, so a bad header cannot exhaust the heap. */
+    private static final int MAX_CELLS = 1 << 24;
+
+    private final BufferedReader in;
+    private final List<String> rows = new ArrayList<>();
+    private String pending;
+    private int lineNumber = 0;
+
+    public LevelReader(Reader reader) {
+        this.in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    public LevelReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a single level given as a string in either notation.
+     * @param levelData The level data.
+     * @return The parsed level.
+     * @throws IllegalArgumentException If the string contains no valid level.
+     */
+    public static Level parse(String levelData) {
+        LevelParseEvent event = LevelParseEvent.enabled() ? new LevelParseEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        try (LevelReader reader = new LevelReader(new StringReader(levelData))) {
+            Level level = reader.read();
+            if (level == null) {
+                throw new IllegalArgumentException("No level found");
+            }
+            if (event != null) {
+                describe(event, level, "text", -1);
+                event.commit();
+            }
+            return level;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fills the attributes of a parse event, shared with {@link LevelCatalog}.
+     */
+    static void describe(LevelParseEvent event, Level level, String format, int index) {
+        event.format = format;
+        event.index = index;
+        event.rows = level.getRows();
+        event.cols = level.getCols();
+        event.crates = level.getCrateCount();
+    }
+
+    /**
+     * Reads the next level.
+     * @return The next level, or null if the end of the input is reached.
+     * @throws IOException If reading fails or the level is malformed.
+     */
+    public Level read() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.equals(START_MARKER)) {
+                return readNative();
+            }
+            if (isXsbRow(line)) {
+                return readXsb(line);
+            }
+            // Anything else is a title, comment or blank line
+        }
+        return null;
+    }
+
+    /**
+     * Skips the next level without building a {@link Level}.
+     * @return false if the end of the input is reached.
+     * @throws IOException If reading fails.
+     */
+    public boolean skip() throws IOException {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.equals(START_MARKER)) {
+                while ((line = readLine()) != null && !line.equals(END_MARKER)) {
+                    // Skip native rows
+                }
+                return true;
+            }
+            if (isXsbRow(line)) {
+                while ((line = readLine()) != null && isXsbRow(line)) {
+                    // Skip XSB rows
+                }
+                pending = line;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * @return The number of lines consumed so far.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private String readLine() throws IOException {
+        if (pending != null) {
+            String line = pending;
+            pending = null;
+            return line;
+        }
+        String line = in.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+        return line;
+    }
+
+    private Level readNative() throws IOException {
+        String dimensions = readLine();
+        String position = readLine();
+        if (dimensions == null || position == null) {
+            throw error("Unexpected end of level header");
+        }
+        int rowCount;
+        int colCount;
+        int playerRow;
+        int playerCol;
+        try {
+            String[] dims = dimensions.trim().split("x");
+            colCount = Integer.parseInt(dims[0]);
+            rowCount = Integer.parseInt(dims[1]);
+            String[] pos = position.trim().split(",");
+            playerRow = Integer.parseInt(pos[0]);
+            playerCol = Integer.parseInt(pos[1]);
+        } catch (RuntimeException e) {
+            throw error("Invalid level header");
+        }
+        if (rowCount <= 0 || colCount <= 0 || rowCount > MAX_SIDE || colCount > MAX_SIDE
+                || Math.multiplyExact(rowCount, colCount) > MAX_CELLS) {
+            throw error("Invalid level dimensions " + colCount + "x" + rowCount);
+        }
+        if (playerRow < 0 || playerRow >= rowCount || playerCol < 0 || playerCol >= colCount) {
+            throw error("Player position " + playerRow + "," + playerCol + " is outside the level");
+        }
+
+        byte[] cells = new byte[rowCount * colCount];
+        int[] crates = new int[cells.length];
+        int crateCount = 0;
+        Arrays.fill(cells, Board.WALL);
+        int r = 0;
+        String line;
+        while ((line = readLine()) != null && !line.equals(END_MARKER)) {
+            if (r >= rowCount) {
+                continue; // Extra rows are ignored like in the old parser
+            }
+            int length = Math.min(line.length(), colCount);
+            for (int c = 0; c < length; c++) {
+                int pos = r * colCount + c;
+                switch (line.charAt(c)) {
+                    case 'w' -> cells[pos] = Board.WALL;
+                    case '*' -> cells[pos] = Board.GOAL;
+                    case 'c' -> {
+                        cells[pos] = Board.FLOOR;
+                        crates[crateCount++] = pos;
+                    }
+                    default -> cells[pos] = Board.FLOOR;
+                }
+            }
+            r++;
+        }
+        int player = playerRow * colCount + playerCol;
+        if (cells[player] == Board.WALL) {
+            throw error("Player position " + playerRow + "," + playerCol + " is a wall");
+        }
+        return build(rowCount, colCount, cells, crates, crateCount, player);
+    }
+
+    private Level readXsb(String first) throws IOException {
+        rows.clear();
+        rows.add(first);
+        int colCount = stripTrailing(first);
+        String line;
+        while ((line = readLine()) != null && isXsbRow(line)) {
+            rows.add(line);
+            colCount = Math.max(colCount, stripTrailing(line));
+        }
+        // The line ending the level may already start the next one
+        pending = line;
+
+        int rowCount = rows.size();
+        byte[] cells = new byte[rowCount * colCount];
+        int[] crates = new int[cells.length];
+        int crateCount = 0;
+        int player = -1;
+        Arrays.fill(cells, Board.WALL);
+        for (int r = 0; r < rowCount; r++) {
+            String row = rows.get(r);
+            int length = Math.min(row.length(), colCount);
+            for (int c = 0; c < length; c++) {
+                int pos = r * colCount + c;
+                switch (row.charAt(c)) {
+                    case '#' -> cells[pos] = Board.WALL;
+                    case '.' -> cells[pos] = Board.GOAL;
+                    case '$' -> {
+                        cells[pos] = Board.FLOOR;
+                        crates[crateCount++] = pos;
+                    }
+                    case '*' -> {
+                        cells[pos] = Board.GOAL;
+                        crates[crateCount++] = pos;
+                    }
+                    case '@' -> {
+                        cells[pos] = Board.FLOOR;
+                        player = pos;
+                    }
+                    case '+' -> {
+                        cells[pos] = Board.GOAL;
+                        player = pos;
+                    }
+                    default -> cells[pos] = Board.FLOOR;
+                }
+            }
+        }
+        if (player < 0) {
+            throw error("Level without player");
+        }
+        sealOutside(cells, rowCount, colCount, player);
+        return build(rowCount, colCount, cells, crates, crateCount, player);
+    }
+
+    /**
+     * Turns floor the player can never reach into walls. XSB levels leave the
+     * area outside the outer wall as spaces, the native format has walls there.
+     */
+    private static void sealOutside(byte[] cells, int rowCount, int colCount, int player) {
+        boolean[] inside = new boolean[cells.length];
+        int[] queue = new int[cells.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = player;
+        inside[player] = true;
+        while (head < tail) {
+            int pos = queue[head++];
+            int r = pos / colCount;
+            int c = pos % colCount;
+            if (r > 0) tail = visit(cells, inside, queue, tail, pos - colCount);
+            if (r < rowCount - 1) tail = visit(cells, inside, queue, tail, pos + colCount);
+            if (c > 0) tail = visit(cells, inside, queue, tail, pos - 1);
+            if (c < colCount - 1) tail = visit(cells, inside, queue, tail, pos + 1);
+        }
+        for (int pos = 0; pos < cells.length; pos++) {
+            if (!inside[pos] && cells[pos] == Board.FLOOR) {
+                cells[pos] = Board.WALL;
+            }
+        }
+    }
+
+    private static int visit(byte[] cells, boolean[] inside, int[] queue, int tail, int pos) {
+        if (!inside[pos] && cells[pos] != Board.WALL) {
+            inside[pos] = true;
+            queue[tail++] = pos;
+        }
+        return tail;
+    }
+
+    private Level build(int rowCount, int colCount, byte[] cells, int[] crates, int crateCount, int player)
+            throws IOException {
+        try {
+            return Level.adopt(rowCount, colCount, cells, Arrays.copyOf(crates, crateCount), player);
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("Line " + lineNumber + ": " + message);
+    }
+
+    /**
+     * Checks if a line is a row of an XSB level: only XSB characters and at least one wall.
+     */
+    static boolean isXsbRow(String line) {
+        boolean wall = false;
+        for (int i = 0; i < line.length(); i++) {
+            switch (line.charAt(i)) {
+                case '#' -> wall = true;
+                case ' ', '-', '_', '@', '+', '$', '*', '.', '\t' -> { }
+                default -> {
+                    return false;
+                }
+            }
+        }
+        return wall;
+    }
+
+    private static int stripTrailing(String line) {
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,66 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes levels in the native format read by {@link LevelReader}, the format of
+ * {@code levels.txt}: {@code +++}, the dimensions, the player position, one row
+ * per line using 'w', 'g', 'c' and '*', and {@code ---}.
+ * <p>
+ * The native format has no symbol for a crate on a goal, so such levels cannot be written.
+ */
+public class LevelWriter {
+
+    private LevelWriter() {
+    }
+
+    /**
+     * @param level The level to write.
+     * @return The level in the native format, ending with a line break.
+     * @throws IllegalArgumentException If a crate stands on a goal.
+     */
+    public static String toNative(Level level) {
+        int cols = level.getCols();
+        char[] map = new char[level.size()];
+        for (int pos = 0; pos < map.length; pos++) {
+            byte cell = level.cellAt(pos);
+            map[pos] = cell == Board.WALL ? 'w' : cell == Board.GOAL ? '*' : 'g';
+        }
+        for (int i = 0; i < level.getCrateCount(); i++) {
+            int pos = level.getCrate(i);
+            if (map[pos] == '*') {
+                throw new IllegalArgumentException("Crate on goal at " + pos / cols + "," + pos % cols
+                        + " cannot be written in the native format");
+            }
+            map[pos] = 'c';
+        }
+        StringBuilder out = new StringBuilder((cols + 1) * level.getRows() + 32);
+        out.append("+++\n");
+        out.append(cols).append('x').append(level.getRows()).append('\n');
+        out.append(level.getPlayer() / cols).append(',').append(level.getPlayer() % cols).append('\n');
+        for (int row = 0; row < level.getRows(); row++) {
+            out.append(map, row * cols, cols).append('\n');
+        }
+        out.append("---\n");
+        return out.toString();
+    }
+
+    /**
+     * Writes a pack.
+     * @param levels The levels in pack order.
+     * @param out The writer, not closed.
+     * @throws IOException If writing fails.
+     * @throws IllegalArgumentException If a crate of any level stands on a goal.
+     */
+    public static void write(List<Level> levels, Writer out) throws IOException {
+        for (Level level : levels) {
+            out.write(toNative(level));
+        }
+        out.flush();
+    }
+}
@@ -1,8 +1,12 @@
 module de.vladistic.sokoban {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.management;
+    requires jdk.jfr;
 
 
     opens de.vladistic.sokoban to javafx.fxml;
     exports de.vladistic.sokoban;
+    exports de.vladistic.sokoban.engine;
+    exports de.vladistic.sokoban.solver;
 }
\ No newline at end of file
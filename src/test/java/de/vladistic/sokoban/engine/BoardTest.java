@@ -0,0 +1,195 @@
+package de.vladistic.sokoban.engine;
+
+import de.vladistic.sokoban.utils.LevelReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rules of the headless board: walking, pushing, blocked pushes and taking steps back.
+ */
+class BoardTest {
+
+    private static Board board(String... rows) {
+        return LevelReader.parse(String.join("\n", rows)).toBoard();
+    }
+
+    private static int[] crates(Board board) {
+        int count = 0;
+        for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+            count++;
+        }
+        int[] cells = new int[count];
+        count = 0;
+        for (int pos = board.nextCrate(0); pos >= 0; pos = board.nextCrate(pos + 1)) {
+            cells[count++] = pos;
+        }
+        return cells;
+    }
+
+    @Test
+    void walksAndPushesOntoGoal() {
+        Board board = board(
+                "######",
+                "#@$ .#",
+                "######");
+        int crate = board.index(1, 2);
+        assertEquals(0, board.getCratesOnGoals());
+        assertEquals(1, board.getGoalCount());
+
+        assertEquals(Board.PUSHED, board.move(Board.RIGHT));
+        assertEquals(board.index(1, 2), board.getPlayer());
+        assertTrue(board.hasCrate(crate + 1));
+        assertFalse(board.hasCrate(crate));
+        assertEquals(1, board.getCrateVersion());
+        assertFalse(board.isSolved());
+
+        assertEquals(Board.PUSHED, board.move(Board.RIGHT));
+        assertEquals(1, board.getCratesOnGoals());
+        assertEquals(2, board.getCrateVersion());
+        assertTrue(board.isSolved());
+
+        assertEquals(Board.WALKED, board.move(Board.LEFT));
+        assertEquals(2, board.getCrateVersion(), "walking must not change the crate version");
+    }
+
+    @Test
+    void pushingOffAGoalUncoversIt() {
+        Board board = board(
+                "######",
+                "#@*  #",
+                "######");
+        assertEquals(1, board.getCratesOnGoals());
+        assertTrue(board.isSolved());
+        assertEquals(Board.PUSHED, board.move(Board.RIGHT));
+        assertEquals(0, board.getCratesOnGoals());
+        assertFalse(board.isSolved());
+    }
+
+    @Test
+    void blocksWallsAndPushesIntoWallsOrCrates() {
+        Board board = board(
+                "#####",
+                "#@$$#",
+                "# $ #",
+                "# # #",
+                "#####");
+        assertFalse(board.canMove(Board.UP));
+        assertEquals(Board.BLOCKED, board.move(Board.UP));
+        // Two crates in a row
+        assertFalse(board.canMove(Board.RIGHT));
+        assertEquals(Board.BLOCKED, board.move(Board.RIGHT));
+
+        assertEquals(Board.WALKED, board.move(Board.DOWN));
+        assertEquals(Board.PUSHED, board.move(Board.RIGHT));
+        // Crate in front of a wall
+        assertFalse(board.canMove(Board.RIGHT));
+        assertEquals(Board.BLOCKED, board.move(Board.RIGHT));
+        assertEquals(board.index(2, 2), board.getPlayer());
+        assertEquals(1, board.getCrateVersion());
+    }
+
+    @Test
+    void blocksPushesOverTheEdge() {
+        // No surrounding wall, the crate reaches the last column
+        Board board = new Board(1, 3, new byte[]{Board.FLOOR, Board.FLOOR, Board.FLOOR}, new int[]{1}, 0);
+        assertTrue(board.canMove(Board.RIGHT));
+        assertEquals(Board.PUSHED, board.move(Board.RIGHT));
+        assertFalse(board.canMove(Board.RIGHT));
+        assertEquals(Board.BLOCKED, board.move(Board.RIGHT));
+        assertEquals(Board.BLOCKED, board.move(Board.UP));
+        assertEquals(Board.BLOCKED, board.move(Board.DOWN));
+        assertTrue(board.hasCrate(2));
+        assertEquals(-1, board.neighbour(0, Board.LEFT));
+        assertEquals(-1, board.neighbour(2, Board.RIGHT));
+    }
+
+    @Test
+    void canMoveAgreesWithMove() {
+        Board board = board(
+                "#######",
+                "#  .  #",
+                "# $#$ #",
+                "#. @ .#",
+                "# $ $ #",
+                "#  .  #",
+                "#######");
+        String steps = "ulrddlurrdulldurr";
+        for (char step : steps.toCharArray()) {
+            int dir = Board.fromLurd(step);
+            for (int d = 0; d < 4; d++) {
+                Board copy = board.copy();
+                assertEquals(board.canMove(d), copy.move(d) != Board.BLOCKED);
+            }
+            board.move(dir);
+        }
+    }
+
+    @Test
+    void unmoveTakesBackWalksAndPushes() {
+        Board board = board(
+                "#######",
+                "#  .  #",
+                "# $#$ #",
+                "#. @ .#",
+                "# $ $ #",
+                "#  .  #",
+                "#######");
+        int[] startCrates = crates(board);
+        int startPlayer = board.getPlayer();
+        int startOnGoals = board.getCratesOnGoals();
+
+        String steps = "LulDDrrRRuuLUlddrdL";
+        int[] dirs = new int[steps.length()];
+        boolean[] pushed = new boolean[steps.length()];
+        int count = 0;
+        for (char step : steps.toCharArray()) {
+            int dir = Board.fromLurd(step);
+            int result = board.move(dir);
+            if (result != Board.BLOCKED) {
+                dirs[count] = dir;
+                pushed[count++] = result == Board.PUSHED;
+            }
+        }
+        int version = board.getCrateVersion();
+        int pushes = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            board.unmove(dirs[i], pushed[i]);
+            if (pushed[i]) {
+                pushes++;
+            }
+        }
+        assertTrue(pushes > 0);
+        assertEquals(startPlayer, board.getPlayer());
+        assertArrayEquals(startCrates, crates(board));
+        assertEquals(startOnGoals, board.getCratesOnGoals());
+        assertEquals(version + pushes, board.getCrateVersion(), "pulls change the crate version as well");
+    }
+
+    @Test
+    void unmoveRejectsStepsThatDoNotMatch() {
+        Board board = board(
+                "#####",
+                "#@ .#",
+                "#$  #",
+                "#####");
+        // Wall behind the player
+        assertThrows(IllegalStateException.class, () -> board.unmove(Board.RIGHT, false));
+        // No crate in front to pull
+        assertThrows(IllegalStateException.class, () -> board.unmove(Board.LEFT, true));
+    }
+
+    @Test
+    void convertsLurd() {
+        for (int dir = 0; dir < 4; dir++) {
+            assertEquals(dir, Board.fromLurd(Board.toLurd(dir, false)));
+            assertEquals(dir, Board.fromLurd(Board.toLurd(dir, true)));
+            assertTrue(Character.isUpperCase(Board.toLurd(dir, true)));
+        }
+        assertEquals(-1, Board.fromLurd('x'));
+    }
+}
@@ -0,0 +1,60 @@
+package de.vladistic.sokoban.solver;
+
+import de.vladistic.sokoban.SolutionVerifier;
+import de.vladistic.sokoban.engine.Level;
+import de.vladistic.sokoban.utils.LevelReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Push-optimal solutions of the bundled level with every algorithm and heuristic.
+ */
+class SolverTest {
+    private static final int BUNDLED_PUSHES = 18;
+
+    private static Level bundledLevel() throws IOException {
+        try (InputStream in = Objects.requireNonNull(
+                SolverTest.class.getResourceAsStream("/de/vladistic/sokoban/projekt/levels.txt"));
+             LevelReader reader = new LevelReader(in)) {
+            return reader.read();
+        }
+    }
+
+    private static void assertSolved(Level level, Solver solver) {
+        SolverResult result = solver.solve(level);
+        assertEquals(SolverResult.Status.SOLVED, result.getStatus(), solver.getAlgorithm().toString());
+        assertEquals(BUNDLED_PUSHES, result.getPushCount(), solver.getAlgorithm().toString());
+        SolutionVerifier.Result check = SolutionVerifier.verify(level, result.getMoves());
+        assertTrue(check.isValid(), check.toString());
+        assertEquals(result.getMoveCount(), check.getMoves());
+        assertEquals(BUNDLED_PUSHES, check.getPushes());
+    }
+
+    @Test
+    void everyAlgorithmFindsTheOptimalPushCount() throws IOException {
+        Level level = bundledLevel();
+        for (Solver.Algorithm algorithm : Solver.Algorithm.values()) {
+            assertSolved(level, new Solver(algorithm));
+        }
+    }
+
+    @Test
+    void manhattanHeuristicIsOptimalToo() throws IOException {
+        Solver solver = new Solver(Solver.Algorithm.A_STAR);
+        solver.setHeuristic(ManhattanHeuristic::new);
+        assertSolved(bundledLevel(), solver);
+    }
+
+    @Test
+    void reportsUnsolvableLevels() {
+        // The crate can never leave the corner it starts in
+        Level cornered = LevelReader.parse("#####\n#@ .#\n#  ##\n#$ .#\n#####");
+        assertEquals(SolverResult.Status.UNSOLVABLE, new Solver().solve(cornered).getStatus());
+    }
+}
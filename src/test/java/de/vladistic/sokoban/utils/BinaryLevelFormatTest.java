@@ -0,0 +1,98 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Level;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Levels written as a binary pack decode to the same levels, and corrupt records are rejected.
+ */
+class BinaryLevelFormatTest {
+
+    private static List<Level> levels() {
+        // A wall span longer than one run symbol holds, crates and the player on goals
+        String wide = "#".repeat(300) + "\n#@$." + " ".repeat(295) + "#\n" + "#".repeat(300);
+        return List.of(
+                LevelReader.parse("""
+                        +++
+                        16x10
+                        1,8
+                        wwwwwwwwwwwwwwww
+                        wwwwwwwggwwwwwww
+                        wwwwwwwccggwwwww
+                        wwwwwwwgc*gwwwww
+                        wwwww***gwwwwwww
+                        wwwwwwwcgwwwwwww
+                        wwwwwwwggwwwwwww
+                        wwwwwwwwwwwwwwww
+                        wwwwwwwwwwwwwwww
+                        wwwwwwwwwwwwwwww
+                        ---
+                        """),
+                LevelReader.parse("#######\n#+*$. #\n#######"),
+                LevelReader.parse(wide));
+    }
+
+    private static ByteBuffer pack(List<Level> levels) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLevelFormat.write(levels, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void assertSameLevel(Level expected, Level actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getCols(), actual.getCols());
+        assertEquals(expected.getPlayer(), actual.getPlayer());
+        assertEquals(expected.getCrateCount(), actual.getCrateCount());
+        for (int i = 0; i < expected.getCrateCount(); i++) {
+            assertEquals(expected.getCrate(i), actual.getCrate(i));
+        }
+        for (int pos = 0; pos < expected.size(); pos++) {
+            assertEquals(expected.cellAt(pos), actual.cellAt(pos), "cell " + pos);
+        }
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        List<Level> levels = levels();
+        ByteBuffer buffer = pack(levels);
+        assertTrue(BinaryLevelFormat.isBinary(buffer));
+        long[] offsets = BinaryLevelFormat.offsets(buffer);
+        assertEquals(levels.size(), offsets.length);
+        for (int i = 0; i < levels.size(); i++) {
+            assertSameLevel(levels.get(i), BinaryLevelFormat.decode(buffer, (int) offsets[i]));
+        }
+    }
+
+    @Test
+    void rejectsTruncatedRecord() throws IOException {
+        ByteBuffer buffer = pack(levels());
+        long[] offsets = BinaryLevelFormat.offsets(buffer);
+        int last = (int) offsets[offsets.length - 1];
+        ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), last + 20));
+        assertThrows(IOException.class, () -> BinaryLevelFormat.decode(truncated, last));
+    }
+
+    @Test
+    void rejectsNegativeCrateCount() {
+        // cols 5, rows 3, crates -1 as a varint
+        ByteBuffer record = ByteBuffer.wrap(new byte[]{5, 3, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F,
+                0, 0, 0, 0, 0, 0, 0, 0});
+        assertThrows(IOException.class, () -> BinaryLevelFormat.decode(record, 0));
+    }
+
+    @Test
+    void rejectsTextAsPack() {
+        ByteBuffer text = ByteBuffer.wrap("+++\n5x3\n1,1\n".getBytes());
+        assertThrows(IOException.class, () -> BinaryLevelFormat.offsets(text));
+    }
+}
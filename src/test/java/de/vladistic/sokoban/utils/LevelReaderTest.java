@@ -0,0 +1,118 @@
+package de.vladistic.sokoban.utils;
+
+import de.vladistic.sokoban.engine.Board;
+import de.vladistic.sokoban.engine.Level;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Native and XSB notation, and the malformed input the reader has to reject.
+ */
+class LevelReaderTest {
+
+    private static final String NATIVE = """
+            +++
+            5x4
+            1,1
+            wwwww
+            wgc*w
+            wg*cw
+            wwwww
+            ---
+            """;
+
+    private static Level readOne(String text) throws IOException {
+        try (LevelReader reader = new LevelReader(new StringReader(text))) {
+            return reader.read();
+        }
+    }
+
+    @Test
+    void readsNativeLevel() throws IOException {
+        Level level = readOne(NATIVE);
+        assertEquals(4, level.getRows());
+        assertEquals(5, level.getCols());
+        assertEquals(6, level.getPlayer());
+        assertEquals(2, level.getCrateCount());
+        assertEquals(7, level.getCrate(0));
+        assertEquals(13, level.getCrate(1));
+        assertEquals(Board.GOAL, level.cellAt(8));
+        assertEquals(Board.GOAL, level.cellAt(12));
+        assertEquals(Board.WALL, level.cellAt(0));
+        assertEquals(Board.FLOOR, level.cellAt(11));
+    }
+
+    @Test
+    void readsXsbLevelsBetweenTitles() throws IOException {
+        String text = """
+                Title of the first level
+                  #####
+                ###   #
+                #.@$ .#
+                ###*  #
+                  #####
+
+                ; Second level
+                ####
+                #+$#
+                ####
+                """;
+        try (LevelReader reader = new LevelReader(new StringReader(text))) {
+            Level first = reader.read();
+            assertEquals(5, first.getRows());
+            assertEquals(7, first.getCols());
+            assertEquals(2 * 7 + 2, first.getPlayer());
+            assertEquals(2, first.getCrateCount());
+            // Crate on goal
+            assertEquals(3 * 7 + 3, first.getCrate(1));
+            assertEquals(Board.GOAL, first.cellAt(3 * 7 + 3));
+            // Outside the outer wall is sealed
+            assertEquals(Board.WALL, first.cellAt(0));
+
+            Level second = reader.read();
+            assertEquals(3, second.getRows());
+            assertEquals(5, second.getPlayer());
+            assertEquals(Board.GOAL, second.cellAt(5));
+            assertEquals(1, second.getCrateCount());
+
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void parseAcceptsEitherNotation() {
+        assertEquals(2, LevelReader.parse(NATIVE).getCrateCount());
+        assertEquals(1, LevelReader.parse("#####\n#@$.#\n#####").getCrateCount());
+        assertThrows(IllegalArgumentException.class, () -> LevelReader.parse("no level here"));
+    }
+
+    @Test
+    void rejectsMalformedNativeHeaders() {
+        String[] headers = {
+                "-3x4\n0,0",          // Negative size
+                "0x4\n0,0",           // Empty
+                "70000x70000\n1,1",   // Cell count overflows
+                "5x4\n1,9",           // Column outside the level
+                "5x4\n-1,1",          // Row outside the level
+                "5x4\n0,0",           // Player in a wall
+                "5 by 4\n1,1",        // Not a number
+                "5x4"                 // Missing position
+        };
+        for (String header : headers) {
+            String text = "+++\n" + header + "\nwwwww\nwgc*w\nwg*cw\nwwwww\n---\n";
+            assertThrows(IOException.class, () -> readOne(text), header);
+            assertThrows(IllegalArgumentException.class, () -> LevelReader.parse(text), header);
+        }
+    }
+
+    @Test
+    void rejectsXsbLevelWithoutPlayer() {
+        assertThrows(IOException.class, () -> readOne("#####\n# $.#\n#####\n"));
+    }
+}